@@ -0,0 +1,244 @@
+package benchmarks;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Access to the game's classes for the benchmarks.
+ *
+ * The game keeps its classes in the default package, which code in a named package can not refer to, and JMH does not
+ * allow benchmarks in the default package. So the game's constructors and methods are looked up once by reflection,
+ * including the private ones that are being measured. Game objects are passed around as Object. The handles are
+ * static final, so the JIT compiler inlines them, and they cost about the same as direct calls.
+ */
+final class Game {
+
+    static final MethodHandle NEW_GRID = constructor("Grid", int.class, int.class, int.class, int.class);
+    static final MethodHandle GRID_GET_BLOCKS = method("Grid", "getBlocks");
+    static final MethodHandle GRID_RELEASE_BLOCK = method("Grid", "releaseBlock", "Block");
+    static final MethodHandle GRID_HORIZONTAL_LINE_FORMED = method("Grid", "horizontalLineFormed", int.class);
+    static final MethodHandle GRID_DELETE_ROW = method("Grid", "deleteRow", int.class);
+    static final MethodHandle GRID_DROP_BLOCKS = method("Grid", "dropBlocks", int.class);
+    static final MethodHandle GRID_CLEAR_FULL_ROWS = method("Grid", "clearFullRows");
+
+    static final MethodHandle NEW_BLOCK = constructor("Block", int.class, int.class, Color.class);
+
+    static final MethodHandle NEW_TETROMINO = constructor("Tetromino", "Grid");
+    static final MethodHandle TETROMINO_GENERATE_NEW_PIECE = method("Tetromino", "generateNewPiece",
+            "PieceGenerator");
+
+    static final MethodHandle NEW_UNIFORM_PIECE_GENERATOR = constructor("UniformPieceGenerator", long.class);
+    static final MethodHandle TETROMINO_CHANGE_GRID = method("Tetromino", "changeGrid", "Grid");
+    static final MethodHandle TETROMINO_ROTATE = method("Tetromino", "rotate");
+    static final MethodHandle TETROMINO_MOVE_UP = method("Tetromino", "moveUp");
+    static final MethodHandle TETROMINO_MOVE_DOWN = method("Tetromino", "moveDown");
+    static final MethodHandle TETROMINO_MOVE_RIGHT = method("Tetromino", "moveRight");
+    static final MethodHandle TETROMINO_CAN_SHIFT_DOWN = method("Tetromino", "canShiftDown");
+    static final MethodHandle TETROMINO_CAN_SHIFT_LEFT = method("Tetromino", "canShiftLeft");
+    static final MethodHandle TETROMINO_CAN_SHIFT_RIGHT = method("Tetromino", "canShiftRight");
+    static final MethodHandle TETROMINO_HAS_COLLIDED = method("Tetromino", "hasCollided", int.class, int.class,
+            int.class);
+    static final MethodHandle TETROMINO_ROTATION = getter("Tetromino", "rotation");
+    static final MethodHandle TETROMINO_ORIGIN_X = getter("Tetromino", "originX");
+    static final MethodHandle TETROMINO_ORIGIN_Y = getter("Tetromino", "originY");
+
+    static final MethodHandle GRID_GET_BOARD = method("Grid", "getBoard");
+    static final MethodHandle GRID_COPY_BOARD = method("Grid", "copyBoard");
+    static final MethodHandle BOARD_SET_CELL = method("Board", "setCell", int.class, int.class, int.class);
+    static final MethodHandle BOARD_CLEAR_CELL = method("Board", "clearCell", int.class, int.class);
+
+    static final MethodHandle HEURISTIC_DEFAULT = getter("Heuristic", "DEFAULT");
+    static final MethodHandle NEW_LOOK_AHEAD_SEARCH = constructor("LookAheadSearch", "Heuristic",
+            ForkJoinPool.class);
+    static final MethodHandle LOOK_AHEAD_SEARCH = method("LookAheadSearch", "search", "Board", int.class,
+            int.class);
+    static final MethodHandle LOOK_AHEAD_SEARCH_SET_TRANSPOSITION_TABLE = method("LookAheadSearch",
+            "setTranspositionTable", "TranspositionTable");
+
+    static final MethodHandle NEW_TRANSPOSITION_TABLE = constructor("TranspositionTable", int.class, int.class);
+    static final MethodHandle TRANSPOSITION_TABLE_CLEAR = method("TranspositionTable", "clear");
+    static final MethodHandle TRANSPOSITION_TABLE_GET_HIT_RATE = method("TranspositionTable", "getHitRate");
+
+    static final MethodHandle NEW_PLACEMENT_SEARCH = constructor("PlacementSearch", "Heuristic", int.class,
+            int.class);
+    static final MethodHandle NEW_MULTI_BOARD_SIMULATOR = constructor("MultiBoardSimulator", int.class, int.class,
+            int.class, long.class);
+    static final MethodHandle MULTI_BOARD_SIMULATOR_PLACE_ALL_BEST = method("MultiBoardSimulator", "placeAllBest",
+            "PlacementSearch");
+    static final MethodHandle MULTI_BOARD_SIMULATOR_GET_LIVE_BOARDS = method("MultiBoardSimulator",
+            "getLiveBoards");
+    static final MethodHandle MULTI_BOARD_SIMULATOR_RESET = method("MultiBoardSimulator", "reset");
+
+    static final MethodHandle NEW_TEXT_BOX = constructor("TextBox", int.class, int.class, int.class, int.class,
+            String.class);
+    static final MethodHandle TEXT_BOX_GET_LINES = method("TextBox", "getLines", String.class, Graphics.class);
+
+    private Game() {
+    }
+
+    /**
+     * Creates a Grid and fills its bottom rows with stationary blocks. Every filled row has at least one gap, so no
+     * row is full.
+     * @param columns The number of columns.
+     * @param rows The number of rows.
+     * @param fill The fraction of the rows to fill, from 0 to 1.
+     * @param seed The seed for choosing the gaps.
+     * @return The Grid.
+     */
+    static Object filledGrid(int columns, int rows, double fill, long seed) throws Throwable {
+        Object grid = NEW_GRID.invokeExact(0, 0, columns, rows);
+        Random random = new Random(seed);
+        int filledRows = (int) Math.round(rows * fill);
+        for (int y = rows - 1; y >= rows - filledRows; y --) {
+            int gap = random.nextInt(columns);
+            for (int x = 0; x < columns; x ++) {
+                if (x != gap && random.nextInt(5) != 0) {
+                    addStationaryBlock(grid, x, y);
+                }
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Fills a row of a Grid completely.
+     * @param grid The Grid.
+     * @param columns The number of columns of the Grid.
+     * @param y The row.
+     */
+    static void fillRow(Object grid, int columns, int y) throws Throwable {
+        for (int x = 0; x < columns; x ++) {
+            addStationaryBlock(grid, x, y);
+        }
+    }
+
+    /**
+     * Adds a stationary block to a Grid.
+     * @param grid The Grid.
+     * @param x The column.
+     * @param y The row.
+     */
+    @SuppressWarnings("unchecked")
+    static void addStationaryBlock(Object grid, int x, int y) throws Throwable {
+        Object block = NEW_BLOCK.invokeExact(x, y, Color.BLUE);
+        ((ArrayList<Object>) GRID_GET_BLOCKS.invokeExact(grid)).add(block);
+        GRID_RELEASE_BLOCK.invokeExact(grid, block);
+    }
+
+    /**
+     * Creates a Tetromino and puts it on the Grid, the same way the game does, and then drops it until it is just
+     * above the stationary blocks.
+     * @param grid The Grid.
+     * @param columns The number of columns of the Grid.
+     * @param size The size of the 4 by 4 side Grid that the Tetromino is created on.
+     * @return The Tetromino.
+     */
+    static Object tetrominoAboveStack(Object grid, int columns, int size) throws Throwable {
+        Object sideGrid = NEW_GRID.invokeExact(0, 0, size, size);
+        Object tetromino = NEW_TETROMINO.invokeExact(sideGrid);
+        Object generator = NEW_UNIFORM_PIECE_GENERATOR.invokeExact(42L);
+        TETROMINO_GENERATE_NEW_PIECE.invokeExact(tetromino, generator);
+        TETROMINO_CHANGE_GRID.invokeExact(tetromino, grid);
+        for (int i = 0; i < size; i ++) {
+            TETROMINO_MOVE_UP.invokeExact(tetromino);
+        }
+        for (int i = 0; i < (columns - size) / 2; i ++) {
+            TETROMINO_MOVE_RIGHT.invokeExact(tetromino);
+        }
+        while ((boolean) TETROMINO_MOVE_DOWN.invokeExact(tetromino)) {
+            //Keep dropping.
+        }
+        TETROMINO_MOVE_UP.invokeExact(tetromino);
+        return tetromino;
+    }
+
+    /**
+     * Parses a board size such as "10x16".
+     * @param size The size.
+     * @return The number of columns and rows.
+     */
+    static int[] parseSize(String size) {
+        String[] parts = size.split("x");
+        return new int[] {Integer.parseInt(parts[0]), Integer.parseInt(parts[1])};
+    }
+
+    private static Class<?> gameClass(String name) {
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException exception) {
+            throw new IllegalStateException("The game class " + name + " is not on the class path.", exception);
+        }
+    }
+
+    private static Class<?>[] parameterTypes(Object[] parameters) {
+        Class<?>[] types = new Class<?>[parameters.length];
+        for (int i = 0; i < parameters.length; i ++) {
+            if (parameters[i] instanceof String) {
+                types[i] = gameClass((String) parameters[i]);
+            }
+            else {
+                types[i] = (Class<?>) parameters[i];
+            }
+        }
+        return types;
+    }
+
+    private static MethodHandle constructor(String className, Object... parameters) {
+        try {
+            Constructor<?> constructor = gameClass(className).getDeclaredConstructor(parameterTypes(parameters));
+            constructor.setAccessible(true);
+            return erase(MethodHandles.lookup().unreflectConstructor(constructor));
+        } catch (ReflectiveOperationException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    private static MethodHandle method(String className, String name, Object... parameters) {
+        try {
+            Method method = gameClass(className).getDeclaredMethod(name, parameterTypes(parameters));
+            method.setAccessible(true);
+            return erase(MethodHandles.lookup().unreflect(method));
+        } catch (ReflectiveOperationException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    private static MethodHandle getter(String className, String name) {
+        try {
+            Field field = gameClass(className).getDeclaredField(name);
+            field.setAccessible(true);
+            return erase(MethodHandles.lookup().unreflectGetter(field));
+        } catch (ReflectiveOperationException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    /**
+     * Replaces every game class in the handle's type with Object, so that it can be called with invokeExact.
+     */
+    private static MethodHandle erase(MethodHandle handle) {
+        MethodType type = handle.type();
+        for (int i = 0; i < type.parameterCount(); i ++) {
+            if (isGameClass(type.parameterType(i))) {
+                type = type.changeParameterType(i, Object.class);
+            }
+        }
+        if (isGameClass(type.returnType())) {
+            type = type.changeReturnType(Object.class);
+        }
+        return handle.asType(type);
+    }
+
+    private static boolean isGameClass(Class<?> type) {
+        return type.isPrimitive() == false && type.isArray() == false && type.getName().indexOf('.') == -1;
+    }
+}
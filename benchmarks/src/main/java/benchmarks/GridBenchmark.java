@@ -0,0 +1,115 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the row operations of Grid, and for copying its Board, on boards of different sizes and fill levels.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GridBenchmark {
+
+    @Param({"10x16", "20x40"})
+    public String size;
+
+    @Param({"0.0", "0.25", "0.5", "0.75"})
+    public double fill;
+
+    private int columns;
+    private int rows;
+
+    //A board with no full rows, for the checks.
+    private Object grid;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() throws Throwable {
+        int[] dimensions = Game.parseSize(size);
+        columns = dimensions[0];
+        rows = dimensions[1];
+        grid = Game.filledGrid(columns, rows, fill, 42);
+    }
+
+    /**
+     * A board with a full bottom row, created again before every call that deletes it. Kept in its own state, so
+     * that only the benchmarks that delete rows pay for the setup before every call.
+     */
+    @State(Scope.Thread)
+    public static class ClearState {
+
+        private Object clearGrid;
+
+        @Setup(Level.Invocation)
+        public void setUpInvocation(GridBenchmark benchmark) throws Throwable {
+            clearGrid = Game.filledGrid(benchmark.columns, benchmark.rows, benchmark.fill, 42);
+            Game.fillRow(clearGrid, benchmark.columns, benchmark.rows - 1);
+        }
+    }
+
+    /**
+     * Checks every row below the terminal line, as GamePanel does after each landing.
+     */
+    @Benchmark
+    public int horizontalLineFormed() throws Throwable {
+        int lines = 0;
+        for (int row = 1; row < rows; row ++) {
+            if ((boolean) Game.GRID_HORIZONTAL_LINE_FORMED.invokeExact(grid, row)) {
+                lines ++;
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Deletes the full bottom row one row at a time.
+     */
+    @Benchmark
+    public Object deleteRowAndDropBlocks(ClearState state) throws Throwable {
+        Game.GRID_DELETE_ROW.invokeExact(state.clearGrid, rows - 1);
+        Game.GRID_DROP_BLOCKS.invokeExact(state.clearGrid, rows - 1);
+        return state.clearGrid;
+    }
+
+    /**
+     * Deletes the full bottom row with the single pass operation.
+     */
+    @Benchmark
+    public int[] clearFullRows(ClearState state) throws Throwable {
+        return (int[]) Game.GRID_CLEAR_FULL_ROWS.invokeExact(state.clearGrid);
+    }
+
+    /**
+     * Copies the Board without changing it. Nothing but the copy itself is allocated.
+     */
+    @Benchmark
+    public Object copyBoard() throws Throwable {
+        return (Object) Game.GRID_COPY_BOARD.invokeExact(grid);
+    }
+
+    /**
+     * Copies the Board and tries a move on the copy, which makes the copy take its own rows.
+     */
+    @Benchmark
+    public Object copyBoardAndSetCell() throws Throwable {
+        Object board = (Object) Game.GRID_COPY_BOARD.invokeExact(grid);
+        Game.BOARD_SET_CELL.invokeExact(board, 0, 0, 1);
+        Game.BOARD_CLEAR_CELL.invokeExact(board, 0, 0);
+        return board;
+    }
+}
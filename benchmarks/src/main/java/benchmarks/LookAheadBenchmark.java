@@ -0,0 +1,97 @@
+package benchmarks;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for the computer player's two Tetromino look-ahead search, with different numbers of threads. Comparing
+ * the threads=1 score with the others shows how well the search scales with the number of cores.
+ *
+ * The table parameter compares searching without a TranspositionTable, with one that is emptied before every search
+ * ("cold", the cost of the table when nothing is found in it), and with one that keeps its scores ("warm", every Board
+ * was scored by an earlier search, which is the best case). The hit rate is printed at the end of each trial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LookAheadBenchmark {
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    @Param({"10x16", "20x40"})
+    public String size;
+
+    @Param({"0.25"})
+    public double fill;
+
+    @Param({"none", "cold", "warm"})
+    public String table;
+
+    //Enough entries for every Board that a search of a 20x40 Grid reaches.
+    private static final int TABLE_SIZE = 1 << 16;
+
+    private ForkJoinPool pool;
+    private Object search;
+    private Object board;
+    private Object transpositionTable;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        int[] dimensions = Game.parseSize(size);
+        Object grid = Game.filledGrid(dimensions[0], dimensions[1], fill, 42);
+        board = Game.GRID_GET_BOARD.invokeExact(grid);
+        pool = new ForkJoinPool(threads);
+        search = Game.NEW_LOOK_AHEAD_SEARCH.invokeExact(Game.HEURISTIC_DEFAULT.invokeExact(), pool);
+        if (table.equals("none") == false) {
+            transpositionTable = Game.NEW_TRANSPOSITION_TABLE.invokeExact(TABLE_SIZE, dimensions[1]);
+            Game.LOOK_AHEAD_SEARCH_SET_TRANSPOSITION_TABLE.invokeExact(search, transpositionTable);
+        }
+    }
+
+    /**
+     * Empties a cold table outside of the measured time. A search takes hundreds of microseconds, so the cost of
+     * setting up every invocation is small next to it.
+     */
+    @Setup(Level.Invocation)
+    public void clearTable() throws Throwable {
+        if (table.equals("cold")) {
+            Game.TRANSPOSITION_TABLE_CLEAR.invokeExact(transpositionTable);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Throwable {
+        pool.shutdown();
+        if (transpositionTable != null) {
+            //A cold table is emptied before every search, so this is the hit rate of the last one.
+            System.out.printf("%nTransposition table hit rate: %.1f%%%n",
+                    (double) Game.TRANSPOSITION_TABLE_GET_HIT_RATE.invokeExact(transpositionTable) * 100);
+        }
+    }
+
+    /**
+     * Searches an L piece followed by a T piece, which have placements in all 4 rotations.
+     */
+    @Benchmark
+    public boolean search() throws Throwable {
+        return (boolean) Game.LOOK_AHEAD_SEARCH.invokeExact(search, board, 2, 6);
+    }
+}
@@ -0,0 +1,64 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for placing a Tetromino on every Board of a MultiBoardSimulator, with the computer player choosing the
+ * placements. The score is the time per game stepped, so it can be compared with one GameEngine piece.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+@OperationsPerInvocation(MultiBoardBenchmark.BOARDS)
+public class MultiBoardBenchmark {
+
+    //The number of games in the simulator.
+    static final int BOARDS = 1024;
+
+    @Param({"10x16", "20x40"})
+    public String size;
+
+    private Object simulator;
+    private Object search;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        int[] dimensions = Game.parseSize(size);
+        simulator = Game.NEW_MULTI_BOARD_SIMULATOR.invokeExact(BOARDS, dimensions[0], dimensions[1], 42L);
+        search = Game.NEW_PLACEMENT_SEARCH.invokeExact(Game.HEURISTIC_DEFAULT.invokeExact(), dimensions[0],
+                dimensions[1]);
+    }
+
+    /**
+     * Start the games again once most of them are over, so that every call steps close to BOARDS games.
+     */
+    @Setup(Level.Iteration)
+    public void resetIfNeeded() throws Throwable {
+        if ((int) Game.MULTI_BOARD_SIMULATOR_GET_LIVE_BOARDS.invokeExact(simulator) < BOARDS / 2) {
+            Game.MULTI_BOARD_SIMULATOR_RESET.invokeExact(simulator);
+        }
+    }
+
+    @Benchmark
+    public Object placeAllBest() throws Throwable {
+        Game.MULTI_BOARD_SIMULATOR_PLACE_ALL_BEST.invokeExact(simulator, search);
+        return simulator;
+    }
+}
@@ -0,0 +1,84 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for rotating a Tetromino and checking it for collisions, on boards of different sizes and fill levels.
+ * The Tetromino sits just above the stationary blocks, where every check has to look at the stack.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TetrominoBenchmark {
+
+    //The size of the side Grid that Tetrominoes are created on.
+    private static final int SIDE_GRID_SIZE = 4;
+
+    @Param({"10x16", "20x40"})
+    public String size;
+
+    @Param({"0.0", "0.25", "0.5", "0.75"})
+    public double fill;
+
+    private Object tetromino;
+
+    //The position of the Tetromino, for hasCollided.
+    private int rotation;
+    private int originX;
+    private int originY;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        int[] dimensions = Game.parseSize(size);
+        Object grid = Game.filledGrid(dimensions[0], dimensions[1], fill, 42);
+        tetromino = Game.tetrominoAboveStack(grid, dimensions[0], SIDE_GRID_SIZE);
+        rotation = (int) Game.TETROMINO_ROTATION.invokeExact(tetromino);
+        originX = (int) Game.TETROMINO_ORIGIN_X.invokeExact(tetromino);
+        originY = (int) Game.TETROMINO_ORIGIN_Y.invokeExact(tetromino);
+    }
+
+    /**
+     * Rotates the Tetromino. Every fourth call brings it back to where it started, unless a rotation is blocked.
+     */
+    @Benchmark
+    public Object rotate() throws Throwable {
+        Game.TETROMINO_ROTATE.invokeExact(tetromino);
+        return tetromino;
+    }
+
+    @Benchmark
+    public boolean canShiftDown() throws Throwable {
+        return (boolean) Game.TETROMINO_CAN_SHIFT_DOWN.invokeExact(tetromino);
+    }
+
+    @Benchmark
+    public boolean canShiftLeft() throws Throwable {
+        return (boolean) Game.TETROMINO_CAN_SHIFT_LEFT.invokeExact(tetromino);
+    }
+
+    @Benchmark
+    public boolean canShiftRight() throws Throwable {
+        return (boolean) Game.TETROMINO_CAN_SHIFT_RIGHT.invokeExact(tetromino);
+    }
+
+    @Benchmark
+    public boolean hasCollided() throws Throwable {
+        return (boolean) Game.TETROMINO_HAS_COLLIDED.invokeExact(tetromino, rotation, originX, originY + 1);
+    }
+}
@@ -0,0 +1,63 @@
+package benchmarks;
+
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for splitting the text of a TextBox into lines, using text like the game's own screens.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class TextBoxBenchmark {
+
+    //The number of sentences of text.
+    @Param({"1", "6", "24"})
+    public int sentences;
+
+    private static final String SENTENCE = "The objective is to move and rotate Tetrominoes to manipulate where they "
+            + "land. ";
+
+    private Object textBox;
+    private String text;
+    private Graphics graphics;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < sentences; i ++) {
+            builder.append(SENTENCE);
+        }
+        text = builder.toString().trim();
+        textBox = Game.NEW_TEXT_BOX.invokeExact(50, 100, 1000, 400, text);
+        graphics = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB).createGraphics();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        graphics.dispose();
+    }
+
+    @Benchmark
+    public String[] getLines() throws Throwable {
+        return (String[]) Game.TEXT_BOX_GET_LINES.invokeExact(textBox, text, graphics);
+    }
+}
@@ -0,0 +1,141 @@
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A computer player. When a new Tetromino comes into play, it searches every rotation and column for the best
+ * placement (see PlacementSearch), or, if it looks ahead, every placement of both the current and the next Tetromino
+ * (see LookAheadSearch). Then, one tick at a time, it rotates the Tetromino, moves it to the column, and hard
+ * drops it, using the same inputs as a person would.
+ *
+ * A search of the current Tetromino takes microseconds, and looking ahead takes hundreds of microseconds on a 10x16
+ * Grid, about a millisecond on a 20x40 one. Either way, the decision is made long before the Tetromino drops by itself,
+ * which takes hundreds of milliseconds.
+ */
+public class AutoPlayer {
+
+    //The Heuristic used to score placements.
+    private Heuristic heuristic;
+
+    //Finds the placements. Created again if the size of the Grid changes.
+    private PlacementSearch search = null;
+
+    //Stores the scores of Boards, or null to always score them.
+    private TranspositionTable table = null;
+
+    //Finds the placements when looking ahead at the next Tetromino, or null to only look at the current Tetromino.
+    private LookAheadSearch lookAheadSearch = null;
+
+    //The Tetromino that the current plan is for, and where it should go.
+    private Tetromino plannedTetromino = null;
+    private int targetRotation, targetOriginX;
+
+    //The last input given, and the position of the Tetromino before it. Used to notice moves that did not work.
+    private GameEngine.Input lastInput = GameEngine.Input.NONE;
+    private int lastRotation, lastOriginX;
+
+    /**
+     * Constructor.
+     * @param heuristic The Heuristic used to score placements.
+     */
+    public AutoPlayer(Heuristic heuristic) {
+        this.heuristic = heuristic;
+    }
+
+    /**
+     * Constructor. Creates a player that looks ahead at the next Tetromino.
+     * @param heuristic The Heuristic used to score placements.
+     * @param pool The threads to search on.
+     */
+    public AutoPlayer(Heuristic heuristic, ForkJoinPool pool) {
+        this.heuristic = heuristic;
+        lookAheadSearch = new LookAheadSearch(heuristic, pool);
+    }
+
+    /**
+     * Decides the input for the next tick of the game.
+     * @param engine The game.
+     * @return The input.
+     */
+    public GameEngine.Input getNextInput(GameEngine engine) {
+
+        Tetromino tetromino = engine.getCurrentTetromino();
+
+        //A new Tetromino: decide where it should go.
+        if (tetromino != plannedTetromino) {
+            plan(engine);
+            plannedTetromino = tetromino;
+            lastInput = GameEngine.Input.NONE;
+        }
+
+        //The last rotation or move was blocked. Give up on the plan, and drop the Tetromino where it is.
+        if ((lastInput == GameEngine.Input.ROTATE && tetromino.getRotation() == lastRotation)
+                || ((lastInput == GameEngine.Input.LEFT || lastInput == GameEngine.Input.RIGHT)
+                && tetromino.getOriginX() == lastOriginX)) {
+            targetRotation = tetromino.getRotation();
+            targetOriginX = tetromino.getOriginX();
+        }
+
+        GameEngine.Input input;
+        if (tetromino.getRotation() != targetRotation) {
+            input = GameEngine.Input.ROTATE;
+        }
+        else if (tetromino.getOriginX() < targetOriginX) {
+            input = GameEngine.Input.RIGHT;
+        }
+        else if (tetromino.getOriginX() > targetOriginX) {
+            input = GameEngine.Input.LEFT;
+        }
+        else {
+            input = GameEngine.Input.HARD_DROP;
+        }
+
+        lastInput = input;
+        lastRotation = tetromino.getRotation();
+        lastOriginX = tetromino.getOriginX();
+        return input;
+    }
+
+    /**
+     * Finds the best placement for the current Tetromino.
+     * @param engine The game.
+     */
+    private void plan(GameEngine engine) {
+        Grid grid = engine.getGameGrid();
+
+        if (lookAheadSearch != null) {
+            lookAheadSearch.search(grid.getBoard(), engine.getCurrentTetromino().getShape(),
+                    engine.getNextTetromino().getShape());
+            targetRotation = lookAheadSearch.getBestRotation();
+            targetOriginX = lookAheadSearch.getBestOriginX();
+            return;
+        }
+
+        if (search == null || search.getColumns() != grid.getColumns() || search.getRows() != grid.getRows()) {
+            search = new PlacementSearch(heuristic, grid.getColumns(), grid.getRows());
+            search.setTranspositionTable(table);
+        }
+        search.search(grid.getBoard(), engine.getCurrentTetromino().getShape());
+        targetRotation = search.getBestRotation();
+        targetOriginX = search.getBestOriginX();
+    }
+
+    /**
+     * Store the scores of Boards in a TranspositionTable, so that Boards that were already scored are not scored
+     * again.
+     * @param table The table, which must only hold scores from this player`s Heuristic, or null to not store scores.
+     */
+    public void setTranspositionTable(TranspositionTable table) {
+        this.table = table;
+        if (search != null) {
+            search.setTranspositionTable(table);
+        }
+        if (lookAheadSearch != null) {
+            lookAheadSearch.setTranspositionTable(table);
+        }
+    }
+
+    /*  Getters */
+
+    public Heuristic getHeuristic() {
+        return heuristic;
+    }
+}
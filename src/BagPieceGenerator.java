@@ -0,0 +1,67 @@
+import java.awt.*;
+import java.util.SplittableRandom;
+
+/**
+ * Generates pieces using a 'bag' of all 7 shapes. The bag is shuffled, and the shapes are handed out in that order.
+ * Once it is empty, it is filled and shuffled again. This way, every shape comes exactly once in every 7 pieces, and
+ * the player never has to wait long for a particular shape. Colours are chosen at random.
+ */
+public class BagPieceGenerator extends PieceGenerator {
+
+    //The seed that the random numbers were started from.
+    private long seed;
+
+    //The random number generator. Only one is used for the whole game.
+    private SplittableRandom random;
+
+    //The shapes in the bag, in the order they will be handed out, and how many of them have been handed out.
+    private int[] bag = new int[TetrominoShape.SHAPE_COUNT];
+    private int position = TetrominoShape.SHAPE_COUNT;
+
+    /**
+     * Constructor.
+     * @param seed The seed for the random numbers. The same seed gives the same pieces.
+     */
+    public BagPieceGenerator(long seed) {
+        this.seed = seed;
+        random = new SplittableRandom(seed);
+    }
+
+    @Override
+    public int nextShape() {
+
+        //The bag is empty: put every shape back in, and shuffle.
+        if (position == bag.length) {
+            for (int i = 0; i < bag.length; i ++) {
+                bag[i] = i;
+            }
+            //Fisher-Yates shuffle.
+            for (int i = bag.length - 1; i > 0; i --) {
+                int j = random.nextInt(i + 1);
+                int swap = bag[i];
+                bag[i] = bag[j];
+                bag[j] = swap;
+            }
+            position = 0;
+        }
+
+        int shape = bag[position];
+        position ++;
+        return shape;
+    }
+
+    @Override
+    public Color nextColour() {
+        return Block.getColour(random.nextInt(Block.getColourCount()) + 1);
+    }
+
+    /*  Getters */
+
+    /**
+     * Get the seed that the random numbers were started from.
+     * @return The seed.
+     */
+    public long getSeed() {
+        return seed;
+    }
+}
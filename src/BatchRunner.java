@@ -0,0 +1,290 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Plays many games with the computer player, without a window, and prints statistics about them. Useful for seeing
+ * how a change to the rules or to the computer player affects the game, over far more games than could be watched.
+ *
+ * The games are split between a number of worker threads. Every game gets its own seed, made from the base seed and
+ * the number of the game, so the results are the same no matter how many threads are used.
+ *
+ * Arguments (all optional). Every N other than the seed must be above 0. If an argument is not valid, the usage is
+ * printed, and the program exits with status 1.
+ * -games N        The number of games to play. Default 1000.
+ * -threads N      The number of worker threads. Default: one per core.
+ * -seed N         The base seed. Default 0.
+ * -columns N      The number of columns of the game Grid, from 4 to 64. Default 10, the same as the game.
+ * -rows N         The number of rows of the game Grid, at least 4. Default 16, the same as the game.
+ * -maxPieces N    End a game after this many Tetrominoes have landed. Default 10000.
+ * -lookahead      Let the computer player look at the next Tetromino too (see LookAheadSearch).
+ * -uniform        Choose every piece at random (see UniformPieceGenerator), instead of from a 7-bag.
+ * -table N        Give each worker`s computer player a TranspositionTable of N entries, and print its hit rate.
+ */
+public class BatchRunner {
+
+    //Default settings.
+    final private static int DEFAULT_GAMES = 1000;
+    final private static int DEFAULT_COLUMNS = 10;
+    final private static int DEFAULT_ROWS = 16;
+    final private static int DEFAULT_MAX_PIECES = 10000;
+
+    //How to run the program, printed when the arguments are not valid.
+    final private static String USAGE = "Usage: java BatchRunner [-games N] [-threads N] [-seed N] [-columns N] "
+            + "[-rows N] [-maxPieces N] [-lookahead] [-uniform] [-table N]";
+
+    //Added to the base seed for each game, to spread out the seeds of neighbouring games.
+    final private static long SEED_INCREMENT = 0x9E3779B97F4A7C15L;
+
+    //The settings.
+    private int games = DEFAULT_GAMES;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private long seed = 0;
+    private int columns = DEFAULT_COLUMNS;
+    private int rows = DEFAULT_ROWS;
+    private int maxPieces = DEFAULT_MAX_PIECES;
+    private boolean lookAhead = false;
+    private boolean uniform = false;
+    private int tableSize = 0;
+
+    public static void main(String[] args) throws Exception {
+        //No window is needed.
+        System.setProperty("java.awt.headless", "true");
+
+        BatchRunner runner = new BatchRunner();
+        try {
+            runner.parseArguments(args);
+        } catch (IllegalArgumentException exception) {
+            System.err.println(exception.getMessage());
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+        runner.run();
+    }
+
+    /**
+     * Reads the settings from the command line arguments.
+     * @param args The arguments (see the description of the class).
+     * @throws IllegalArgumentException If an argument is unknown, is missing its value, or has a value that is not
+     *                                  valid.
+     */
+    private void parseArguments(String[] args) {
+        for (int i = 0; i < args.length; i ++) {
+            String arg = args[i];
+            if (arg.equals("-games")) {
+                games = CommandLine.positiveValue(args, ++ i);
+            }
+            else if (arg.equals("-threads")) {
+                threads = CommandLine.positiveValue(args, ++ i);
+            }
+            else if (arg.equals("-seed")) {
+                seed = CommandLine.longValue(args, ++ i);
+            }
+            else if (arg.equals("-columns")) {
+                columns = CommandLine.intValue(args, ++ i, GameEngine.MIN_SIZE, Board.MAX_COLUMNS);
+            }
+            else if (arg.equals("-rows")) {
+                rows = CommandLine.intValue(args, ++ i, GameEngine.MIN_SIZE, Integer.MAX_VALUE);
+            }
+            else if (arg.equals("-maxPieces")) {
+                maxPieces = CommandLine.positiveValue(args, ++ i);
+            }
+            else if (arg.equals("-lookahead")) {
+                lookAhead = true;
+            }
+            else if (arg.equals("-uniform")) {
+                uniform = true;
+            }
+            else if (arg.equals("-table")) {
+                tableSize = CommandLine.positiveValue(args, ++ i);
+            }
+            else {
+                throw new IllegalArgumentException("Unknown argument: " + arg);
+            }
+        }
+    }
+
+    /**
+     * Plays all of the games and prints the results.
+     */
+    public void run() throws Exception {
+        System.out.printf("Playing %d games on a %dx%d Grid with %d threads, seed %d%s%s%n", games, columns, rows,
+                threads, seed, lookAhead ? ", looking ahead" : "",
+                tableSize > 0 ? ", with a table of " + tableSize + " entries" : "");
+
+        long startTime = System.nanoTime();
+
+        //Each worker plays every 'threads'th game, starting from its own number. Every game has its own place in the
+        //results, so the workers never write to the same place.
+        Results results = new Results(games);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        ArrayList<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int worker = 0; worker < threads; worker ++) {
+                final int firstGame = worker;
+                futures.add(pool.submit(() -> playGames(firstGame, results)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            //If a worker failed, stop the others, so that their threads do not keep the program running.
+            pool.shutdownNow();
+        }
+
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+        results.print(seconds);
+    }
+
+    /**
+     * Plays every game handled by one worker.
+     * @param firstGame The number of the worker`s first game. It then plays every 'threads'th game after that.
+     * @param results Where to record the results of the games.
+     */
+    private void playGames(int firstGame, Results results) {
+
+        //Each worker has its own computer player, so nothing is shared between threads.
+        AutoPlayer player;
+        ForkJoinPool searchPool = null;
+        if (lookAhead == true) {
+            searchPool = new ForkJoinPool(1);
+            player = new AutoPlayer(Heuristic.DEFAULT, searchPool);
+        }
+        else {
+            player = new AutoPlayer(Heuristic.DEFAULT);
+        }
+        TranspositionTable table = null;
+        if (tableSize > 0) {
+            table = new TranspositionTable(tableSize, rows);
+            player.setTranspositionTable(table);
+        }
+
+        //Stop early if another worker failed (see run()).
+        for (int game = firstGame; game < games && Thread.currentThread().isInterrupted() == false;
+                game += threads) {
+            long gameSeed = seed + (game * SEED_INCREMENT);
+            PieceGenerator generator;
+            if (uniform == true) {
+                generator = new UniformPieceGenerator(gameSeed);
+            }
+            else {
+                generator = new BagPieceGenerator(gameSeed);
+            }
+
+            GameEngine engine = new GameEngine(columns, rows, generator);
+            while (engine.isGameOver() == false && engine.getPiecesLanded() < maxPieces) {
+                engine.step(player.getNextInput(engine));
+            }
+            results.addGame(game, engine);
+        }
+
+        if (table != null) {
+            results.addTableCounts(table.getHits(), table.getMisses());
+        }
+        if (searchPool != null) {
+            searchPool.shutdown();
+        }
+    }
+
+    /**
+     * The results of all of the games.
+     */
+    private static class Results {
+
+        //The score, ticks and landed Tetrominoes of each game, and whether it was lost, indexed by the number of the
+        //game.
+        private int[] scores;
+        private long[] ticks;
+        private long[] pieces;
+        private boolean[] lost;
+
+        //The lookups that found and did not find a score, in the TranspositionTables of all of the workers.
+        private long tableHits = 0;
+        private long tableMisses = 0;
+
+        private Results(int games) {
+            scores = new int[games];
+            ticks = new long[games];
+            pieces = new long[games];
+            lost = new boolean[games];
+        }
+
+        /**
+         * Record the result of a game.
+         * @param game The number of the game.
+         * @param engine The game, once it is over.
+         */
+        private void addGame(int game, GameEngine engine) {
+            scores[game] = engine.getScore();
+            ticks[game] = engine.getTicks();
+            pieces[game] = engine.getPiecesLanded();
+            lost[game] = engine.isGameOver();
+        }
+
+        /**
+         * Record the counters of a worker`s TranspositionTable, once it has played all of its games.
+         * @param hits The number of lookups that found a score.
+         * @param misses The number of lookups that did not find a score.
+         */
+        private synchronized void addTableCounts(long hits, long misses) {
+            tableHits += hits;
+            tableMisses += misses;
+        }
+
+        /**
+         * Print the statistics.
+         * @param seconds How long it took to play all of the games.
+         */
+        private synchronized void print(double seconds) {
+            long totalPieces = 0, totalTicks = 0, totalScore = 0;
+            int gamesCut = 0;
+            for (int i = 0; i < scores.length; i ++) {
+                totalPieces += pieces[i];
+                totalTicks += ticks[i];
+                totalScore += scores[i];
+                if (lost[i] == false) {
+                    gamesCut ++;
+                }
+            }
+            int[] sorted = scores.clone();
+            Arrays.sort(sorted);
+
+            double mean = (double) totalScore / scores.length;
+            double variance = 0;
+            for (int score : scores) {
+                variance += (score - mean) * (score - mean);
+            }
+            variance /= scores.length;
+
+            System.out.printf("Games played:        %d (%d stopped at the piece limit)%n", scores.length, gamesCut);
+            System.out.printf("Score (= lines):     mean %.2f, std dev %.2f%n", mean, Math.sqrt(variance));
+            System.out.printf("Score distribution:  min %d, 10%% %d, 25%% %d, median %d, 75%% %d, 90%% %d, max %d%n",
+                    sorted[0], percentile(sorted, 10), percentile(sorted, 25), percentile(sorted, 50),
+                    percentile(sorted, 75), percentile(sorted, 90), sorted[sorted.length - 1]);
+            System.out.printf("Pieces per game:     %.1f%n", (double) totalPieces / scores.length);
+            System.out.printf("Ticks per game:      %.1f (%.1f seconds of play at %d ticks per second)%n",
+                    (double) totalTicks / scores.length,
+                    (double) totalTicks / scores.length / GameEngine.TICKS_PER_SECOND, GameEngine.TICKS_PER_SECOND);
+            System.out.printf("Time:                %.2f s, %.0f games per second, %.0f pieces per second%n",
+                    seconds, scores.length / seconds, totalPieces / seconds);
+            if (tableHits + tableMisses > 0) {
+                System.out.printf("Transposition table: %d hits, %d misses, %.1f%% hit rate%n", tableHits, tableMisses,
+                        100.0 * tableHits / (tableHits + tableMisses));
+            }
+        }
+
+        /**
+         * Get a percentile of sorted values.
+         * @param sorted The values, sorted from lowest to highest.
+         * @param percent The percentile, from 0 to 100.
+         * @return The value.
+         */
+        private static int percentile(int[] sorted, int percent) {
+            int index = (int) Math.ceil((percent / 100.0) * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+        }
+    }
+}
@@ -1,6 +1,15 @@
 import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+import java.util.HashMap;
+
 /**
  * Class that represents a game block. It stores its position on the Grid, and has methods to draw itself.
+ *
+ * Drawing the rounded shapes of a block is slow, so each colour of block is only drawn once, onto an image called a
+ * sprite. Blocks are then drawn by copying their sprite onto the screen. When possible, the sprite is copied into a
+ * VolatileImage, which can be stored on the graphics card and drawn faster. Ghost blocks, which show where a
+ * Tetromino will land, have translucent sprites of their own.
  */
 public class Block {
 
@@ -27,6 +36,27 @@ public class Block {
     //The size of the diameter of the arc at the corners of the background shape. Used to draw.
     final static private int CORNER_SIZE = 15;
 
+    //All of the colours that a block can have. The colour code of a colour is its index in this array plus one, so
+    //that a colour code of 0 can mean that there is no block.
+    final static private Color[] COLOURS = {Color.BLUE, Color.RED, Color.CYAN, Color.GREEN, Color.YELLOW,
+            Color.ORANGE, Color.GRAY, Color.PINK};
+
+    //The size of a sprite. The outline of the block fills the whole sprite.
+    final static private int SPRITE_W = BLOCK_W - OUTLINE_WIDTH;
+    final static private int SPRITE_H = BLOCK_H - OUTLINE_WIDTH;
+
+    //The sprites of each colour of block. The VolatileImages are copies of the BufferedImages, which are used whenever
+    //a VolatileImage can not be.
+    final static private HashMap<Color, BufferedImage> sprites = new HashMap<>();
+    final static private HashMap<Color, VolatileImage> volatileSprites = new HashMap<>();
+
+    //The sprites of each colour of ghost block, stored the same way.
+    final static private HashMap<Color, BufferedImage> ghostSprites = new HashMap<>();
+    final static private HashMap<Color, VolatileImage> volatileGhostSprites = new HashMap<>();
+
+    //How opaque a ghost block is, from 0 to 1.
+    final static private float GHOST_ALPHA = 0.3f;
+
     /**
      * Constructor.
      * @param x The x position of the block on the Grid.
@@ -63,16 +93,126 @@ public class Block {
         realY += offsetY + PADDING;
 
         //Draw the block in the calculated position with the right colour.
+        g.drawImage(getSprite(colour, g, sprites, volatileSprites), realX, realY, null);
+    }
+
+    /**
+     * Draws a translucent ghost of the block, a number of rows below the block.
+     * @param g The graphics object.
+     * @param offsetX The left edge of the Grid.
+     * @param offsetY The top edge of the Grid.
+     * @param rows The number of rows below the block to draw the ghost.
+     */
+    public void drawGhost(Graphics g, int offsetX, int offsetY, int rows) {
+        int realX = (x * BLOCK_W) + offsetX + PADDING;
+        int realY = ((y + rows) * BLOCK_H) + offsetY + PADDING;
+        g.drawImage(getSprite(colour, g, ghostSprites, volatileGhostSprites), realX, realY, null);
+    }
+
+    /**
+     * Get the sprite of a block with the specified colour. Creates it first, if it has not been created yet.
+     * @param colour The fill colour of the block.
+     * @param g The graphics object that the sprite will be drawn with.
+     * @param sprites The sprites to look in: either the normal sprites or the ghost sprites.
+     * @param volatileSprites The VolatileImage copies of those sprites.
+     * @return The sprite.
+     */
+    private static Image getSprite(Color colour, Graphics g, HashMap<Color, BufferedImage> sprites,
+                                   HashMap<Color, VolatileImage> volatileSprites) {
+
+        BufferedImage sprite = sprites.get(colour);
+        if (sprite == null) {
+            if (sprites == ghostSprites) {
+                sprite = createGhostSprite(colour);
+            }
+            else {
+                sprite = createSprite(colour);
+            }
+            sprites.put(colour, sprite);
+        }
+
+        //VolatileImages can only be used with the graphics configuration they were made for.
+        if (g instanceof Graphics2D == false) {
+            return sprite;
+        }
+        GraphicsConfiguration config = ((Graphics2D) g).getDeviceConfiguration();
+        if (config == null) {
+            return sprite;
+        }
+
+        VolatileImage volatileSprite = volatileSprites.get(colour);
+        int status = VolatileImage.IMAGE_INCOMPATIBLE;
+        if (volatileSprite != null) {
+            status = volatileSprite.validate(config);
+        }
+
+        //Create a new VolatileImage if there is none, or if the old one can not be used here.
+        if (status == VolatileImage.IMAGE_INCOMPATIBLE) {
+            try {
+                volatileSprite = config.createCompatibleVolatileImage(SPRITE_W, SPRITE_H, Transparency.TRANSLUCENT);
+            } catch (Exception exception) {
+                volatileSprite = null;
+            }
+            if (volatileSprite == null) {
+                volatileSprites.remove(colour);
+                return sprite;
+            }
+            volatileSprites.put(colour, volatileSprite);
+            volatileSprite.validate(config);
+            status = VolatileImage.IMAGE_RESTORED;
+        }
+
+        //The contents of the VolatileImage were lost, or it is new. Copy the sprite into it.
+        if (status == VolatileImage.IMAGE_RESTORED) {
+            Graphics2D g2 = volatileSprite.createGraphics();
+            //Clear it to transparent first, so that the corners stay transparent.
+            g2.setComposite(AlphaComposite.Src);
+            g2.drawImage(sprite, 0, 0, null);
+            g2.dispose();
+        }
+
+        //The contents could have been lost again while copying.
+        if (volatileSprite.contentsLost()) {
+            return sprite;
+        }
+        return volatileSprite;
+    }
+
+    /**
+     * Draws a block of the specified colour onto a new image.
+     * @param colour The fill colour of the block.
+     * @return The image.
+     */
+    private static BufferedImage createSprite(Color colour) {
+
+        BufferedImage sprite = new BufferedImage(SPRITE_W, SPRITE_H, BufferedImage.TYPE_INT_ARGB);
+        Graphics g = sprite.createGraphics();
 
         //Draw outline.
         g.setColor(OUTLINE_COLOUR);
-        g.fillRoundRect(realX, realY,BLOCK_W - OUTLINE_WIDTH, BLOCK_H - OUTLINE_WIDTH,CORNER_SIZE,
-                CORNER_SIZE);
+        g.fillRoundRect(0, 0, BLOCK_W - OUTLINE_WIDTH, BLOCK_H - OUTLINE_WIDTH, CORNER_SIZE, CORNER_SIZE);
         //Draw inner fill, on top of the outline.
         g.setColor(colour);
-        g.fillRoundRect(realX + OUTLINE_WIDTH,realY + OUTLINE_WIDTH, BLOCK_W - (OUTLINE_WIDTH * 3),
-                BLOCK_H - (OUTLINE_WIDTH * 3), CORNER_SIZE, CORNER_SIZE);
+        g.fillRoundRect(OUTLINE_WIDTH, OUTLINE_WIDTH, BLOCK_W - (OUTLINE_WIDTH * 3), BLOCK_H - (OUTLINE_WIDTH * 3),
+                CORNER_SIZE, CORNER_SIZE);
 
+        g.dispose();
+        return sprite;
+    }
+
+    /**
+     * Draws a translucent copy of the block of the specified colour onto a new image.
+     * @param colour The fill colour of the block.
+     * @return The image.
+     */
+    private static BufferedImage createGhostSprite(Color colour) {
+
+        BufferedImage sprite = new BufferedImage(SPRITE_W, SPRITE_H, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = sprite.createGraphics();
+        g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, GHOST_ALPHA));
+        g.drawImage(createSprite(colour), 0, 0, null);
+        g.dispose();
+        return sprite;
     }
 
     /*  Getters and Setters */
@@ -133,6 +273,46 @@ public class Block {
         return colour;
     }
 
+    /**
+     * Get the colour code of this block. Used to store the block`s colour on a Board.
+     * @return The colour code.
+     */
+    public int getColourCode() {
+        return getColourCode(colour);
+    }
+
+    /**
+     * Converts a colour into a colour code, which can be stored on a Board. Colours that blocks can not have are
+     * given the colour code of the first colour.
+     * @param colour The colour.
+     * @return The colour code. Will never be 0.
+     */
+    public static int getColourCode(Color colour) {
+        for (int i = 0; i < COLOURS.length; i ++) {
+            if (COLOURS[i].equals(colour)) {
+                return i + 1;
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * Converts a colour code back into a colour.
+     * @param colourCode The colour code. Must be between 1 and getColourCount(), inclusive.
+     * @return The colour.
+     */
+    public static Color getColour(int colourCode) {
+        return COLOURS[colourCode - 1];
+    }
+
+    /**
+     * Returns the number of colours that a block can have.
+     * @return The number of colours.
+     */
+    public static int getColourCount() {
+        return COLOURS.length;
+    }
+
     /**
      * Returns the width of each block.
      * @return The width.
@@ -0,0 +1,522 @@
+import java.util.Arrays;
+
+/**
+ * This class keeps track of which cells of a Grid are occupied by stationary blocks. Each row is stored as a single
+ * bitmask, where bit x is set when the cell in column x is occupied. A parallel colour plane stores the colour code of
+ * every occupied cell (see Block.getColourCode()).
+ *
+ * The Board also keeps the top and the number of holes of every column up to date as cells change, so that finding
+ * where a Tetromino will land does not need to search the Board.
+ *
+ * Tetrominoes start above the top of the Grid, so blocks are able to land partially outside of it. To account for
+ * this, a few hidden rows are kept above row 0. These rows have negative indices.
+ *
+ * A Board can be copied cheaply with copy(). The copy shares its arrays with the original until either of them
+ * changes, at which point the one that changes makes its own copy of the arrays first (copy-on-write). This way, a
+ * search can copy a Board for every move it tries, and only pays for the ones that it actually changes.
+ *
+ * Limitation:
+ * Since each row is a long, a Board can not have more than 64 columns.
+ */
+public class Board {
+
+    //The maximum number of columns. Each row is stored inside of a long.
+    final public static int MAX_COLUMNS = 64;
+
+    //The number of hidden rows above the top of the Board. Equal to the size of a Tetromino, since that is as high
+    //above the Grid as a block can be.
+    final public static int HIDDEN_ROWS = 4;
+
+    //The number of visible rows and columns.
+    private int rows, columns;
+
+    //One bitmask per row, including the hidden rows. Row y is stored at index (y + HIDDEN_ROWS).
+    private long[] rowMasks;
+
+    //The colour code of each cell, 0 if the cell is empty. Cell (x, y) is stored at index
+    //((y + HIDDEN_ROWS) * columns) + x.
+    private byte[] colours;
+
+    //The bitmask of a row in which every cell is occupied.
+    private long fullRowMask;
+
+    //The highest occupied row of each column, or the number of rows if the column is empty.
+    private int[] columnTops;
+
+    //The number of holes in each column, and on the whole Board. A hole is an empty cell with an occupied cell
+    //somewhere above it in the same column.
+    private int[] columnHoles;
+    private int holeCount = 0;
+
+    //Goes up every time a cell changes, so that anything calculated from the Board can tell when it is out of date.
+    private int changeCount = 0;
+
+    //Whether or not the arrays may be shared with another Board, in which case they must be copied before changing.
+    private boolean shared = false;
+
+    //Returned when no rows were cleared, to avoid creating a new array.
+    final private static int[] NO_ROWS = new int[0];
+
+    /**
+     * Constructor. Creates an empty Board.
+     * @param columns The number of columns. Can not be more than MAX_COLUMNS.
+     * @param rows The number of visible rows.
+     */
+    public Board(int columns, int rows) {
+        if (columns < 1 || columns > MAX_COLUMNS) {
+            throw new IllegalArgumentException("A Board must have between 1 and " + MAX_COLUMNS + " columns.");
+        }
+        if (rows < 1) {
+            throw new IllegalArgumentException("A Board must have at least 1 row.");
+        }
+
+        this.columns = columns;
+        this.rows = rows;
+        rowMasks = new long[rows + HIDDEN_ROWS];
+        colours = new byte[(rows + HIDDEN_ROWS) * columns];
+        columnTops = new int[columns];
+        columnHoles = new int[columns];
+        Arrays.fill(columnTops, rows);
+
+        //Shifting a long by 64 does nothing, so the widest Board needs a special case.
+        if (columns == MAX_COLUMNS) {
+            fullRowMask = -1L;
+        }
+        else {
+            fullRowMask = (1L << columns) - 1;
+        }
+    }
+
+    /**
+     * Constructor. Creates a copy of a Board, which shares the arrays of the original until either one changes.
+     * @param original The Board to copy.
+     */
+    private Board(Board original) {
+        columns = original.columns;
+        rows = original.rows;
+        rowMasks = original.rowMasks;
+        colours = original.colours;
+        fullRowMask = original.fullRowMask;
+        columnTops = original.columnTops;
+        columnHoles = original.columnHoles;
+        holeCount = original.holeCount;
+        changeCount = original.changeCount;
+        shared = true;
+        original.shared = true;
+    }
+
+    /**
+     * Creates a copy of this Board. Nothing is copied until this Board or the copy changes, so a copy that is only
+     * read costs one small object. Must be called from the thread that changes this Board.
+     * @return The copy.
+     */
+    public Board copy() {
+        return new Board(this);
+    }
+
+    /**
+     * Gives this Board its own copy of the arrays, if they may be shared with another Board. Must be called before
+     * anything in the arrays is changed.
+     */
+    private void makeWritable() {
+        if (shared == true) {
+            rowMasks = rowMasks.clone();
+            colours = colours.clone();
+            columnTops = columnTops.clone();
+            columnHoles = columnHoles.clone();
+            shared = false;
+        }
+    }
+
+    /**
+     * Checks to see if the cell is occupied. Cells outside of the Board are never occupied.
+     * @param x The column.
+     * @param y The row.
+     * @return True for yes, false for no.
+     */
+    public boolean isOccupied(int x, int y) {
+        if (isInside(x, y) == false) {
+            return false;
+        }
+        return (rowMasks[y + HIDDEN_ROWS] & (1L << x)) != 0;
+    }
+
+    /**
+     * Occupy a cell with a block of the specified colour. Cells outside of the Board are ignored.
+     * @param x The column.
+     * @param y The row.
+     * @param colourCode The colour code of the block. Must not be 0.
+     */
+    public void setCell(int x, int y, int colourCode) {
+        if (isInside(x, y) == true) {
+            makeWritable();
+            if (isOccupied(x, y) == false) {
+                //Above the surface: the empty cells between the new block and the old surface become holes.
+                if (y < columnTops[x]) {
+                    addHoles(x, columnTops[x] - y - 1);
+                    columnTops[x] = y;
+                }
+                //Below the surface: a hole was filled.
+                else {
+                    addHoles(x, -1);
+                }
+            }
+            rowMasks[y + HIDDEN_ROWS] |= 1L << x;
+            colours[getCellIndex(x, y)] = (byte) colourCode;
+            changeCount ++;
+        }
+    }
+
+    /**
+     * Empty a cell. Cells outside of the Board are ignored.
+     * @param x The column.
+     * @param y The row.
+     */
+    public void clearCell(int x, int y) {
+        if (isInside(x, y) == true) {
+            makeWritable();
+            if (isOccupied(x, y) == true) {
+                rowMasks[y + HIDDEN_ROWS] &= ~(1L << x);
+                //The surface block was removed: the surface drops to the next block, and the holes in between are
+                //no longer holes.
+                if (y == columnTops[x]) {
+                    int newTop = y + 1;
+                    while (newTop < rows && isOccupied(x, newTop) == false) {
+                        newTop ++;
+                    }
+                    addHoles(x, -(newTop - y - 1));
+                    columnTops[x] = newTop;
+                }
+                //Below the surface: a new hole.
+                else {
+                    addHoles(x, 1);
+                }
+            }
+            colours[getCellIndex(x, y)] = 0;
+            changeCount ++;
+        }
+    }
+
+    /**
+     * Get the colour code of a cell.
+     * @param x The column.
+     * @param y The row.
+     * @return The colour code, or 0 if the cell is empty or outside of the Board.
+     */
+    public int getColourCode(int x, int y) {
+        if (isInside(x, y) == false) {
+            return 0;
+        }
+        return colours[getCellIndex(x, y)];
+    }
+
+    /**
+     * Get the bitmask of a row. Bit x is set if the cell in column x is occupied.
+     * @param y The row.
+     * @return The bitmask, or 0 if the row is outside of the Board.
+     */
+    public long getRowMask(int y) {
+        if (y < -HIDDEN_ROWS || y >= rows) {
+            return 0;
+        }
+        return rowMasks[y + HIDDEN_ROWS];
+    }
+
+    /**
+     * Copies the bitmask of every row, including the hidden rows, into an array. The top hidden row is copied to index
+     * 0, and row y is copied to index (y + HIDDEN_ROWS).
+     * @param destination The array to copy into. Must have at least getRows() + HIDDEN_ROWS elements.
+     */
+    public void copyRowMasks(long[] destination) {
+        System.arraycopy(rowMasks, 0, destination, 0, rowMasks.length);
+    }
+
+    /**
+     * Copies the colour code of every cell, including the hidden rows, into an array, one byte per cell. Cell (x, y) is
+     * copied to index offset + ((y + HIDDEN_ROWS) * getColumns()) + x.
+     * @param destination The array to copy into. Must have room for getCellCount() bytes after the offset.
+     * @param offset Where to start copying to.
+     */
+    public void copyColours(byte[] destination, int offset) {
+        System.arraycopy(colours, 0, destination, offset, colours.length);
+    }
+
+    /**
+     * Replaces every cell, including the hidden rows, with colour codes from an array laid out the same way as by
+     * copyColours(). The bitmasks and the column tops and holes are worked out again from the colour codes.
+     * @param source The array to copy from. Must have getCellCount() bytes after the offset.
+     * @param offset Where to start copying from.
+     */
+    public void setColours(byte[] source, int offset) {
+        makeWritable();
+        System.arraycopy(source, offset, colours, 0, colours.length);
+        for (int index = 0; index < rowMasks.length; index ++) {
+            long mask = 0;
+            for (int x = 0; x < columns; x ++) {
+                if (colours[(index * columns) + x] != 0) {
+                    mask |= 1L << x;
+                }
+            }
+            rowMasks[index] = mask;
+        }
+        updateColumns();
+    }
+
+    /**
+     * Checks to see if every cell in the row is occupied.
+     * @param y The row.
+     * @return True for yes, false for no.
+     */
+    public boolean isRowFull(int y) {
+        return getRowMask(y) == fullRowMask;
+    }
+
+    /**
+     * Checks to see if the row contains no blocks.
+     * @param y The row.
+     * @return True for yes, false for no.
+     */
+    public boolean isRowEmpty(int y) {
+        return getRowMask(y) == 0;
+    }
+
+    /**
+     * Empty every cell in the row.
+     * @param y The row.
+     */
+    public void clearRow(int y) {
+        if (y >= -HIDDEN_ROWS && y < rows) {
+            makeWritable();
+            int index = y + HIDDEN_ROWS;
+            rowMasks[index] = 0;
+            Arrays.fill(colours, index * columns, (index + 1) * columns, (byte) 0);
+            updateColumns();
+        }
+    }
+
+    /**
+     * Moves every row above the specified row down by one row. The specified row is overwritten, and the top hidden
+     * row becomes empty.
+     * @param y The row that the rows above will drop into.
+     */
+    public void dropRowsAbove(int y) {
+        if (y < -HIDDEN_ROWS || y >= rows) {
+            return;
+        }
+        makeWritable();
+        int index = y + HIDDEN_ROWS;
+
+        //Shift the masks down by one.
+        System.arraycopy(rowMasks, 0, rowMasks, 1, index);
+        rowMasks[0] = 0;
+
+        //Shift the colour plane down by one row.
+        System.arraycopy(colours, 0, colours, columns, index * columns);
+        Arrays.fill(colours, 0, columns, (byte) 0);
+        updateColumns();
+    }
+
+    /**
+     * Deletes every full row at or below the specified row, and drops all of the rows above each deleted row down to
+     * fill the gap. This is done in a single pass from the bottom of the Board to the top.
+     * @param firstRow The highest row that may be deleted. Rows above it are only dropped.
+     * @return The rows that were deleted, from top to bottom, numbered as they were before any row dropped.
+     */
+    public int[] clearFullRows(int firstRow) {
+
+        //Count the full rows first, so that the result can be made the right size.
+        int count = 0;
+        for (int y = Math.max(firstRow, -HIDDEN_ROWS); y < rows; y ++) {
+            if (rowMasks[y + HIDDEN_ROWS] == fullRowMask) {
+                count ++;
+            }
+        }
+        if (count == 0) {
+            return NO_ROWS;
+        }
+
+        makeWritable();
+        int[] clearedRows = new int[count];
+
+        //Copy each row that is kept into the lowest free row. 'write' is the index of that row.
+        int write = rowMasks.length - 1;
+        for (int read = rowMasks.length - 1; read >= 0; read --) {
+            int y = read - HIDDEN_ROWS;
+
+            //Full row: skip it, so that the rows above it drop into its place.
+            if (y >= firstRow && rowMasks[read] == fullRowMask) {
+                count --;
+                clearedRows[count] = y;
+            }
+            else {
+                if (write != read) {
+                    rowMasks[write] = rowMasks[read];
+                    System.arraycopy(colours, read * columns, colours, write * columns, columns);
+                }
+                write --;
+            }
+        }
+
+        //The rows at the top are now empty.
+        Arrays.fill(rowMasks, 0, write + 1, 0);
+        Arrays.fill(colours, 0, (write + 1) * columns, (byte) 0);
+        updateColumns();
+
+        return clearedRows;
+    }
+
+    /**
+     * Empty every cell on the Board.
+     */
+    public void clear() {
+        makeWritable();
+        Arrays.fill(rowMasks, 0);
+        Arrays.fill(colours, (byte) 0);
+        Arrays.fill(columnTops, rows);
+        Arrays.fill(columnHoles, 0);
+        holeCount = 0;
+        changeCount ++;
+    }
+
+    /**
+     * Get the highest occupied row of a column. A block that drops down the column from above will land in the row
+     * above it.
+     * @param x The column.
+     * @return The row, or the number of rows if the column is empty.
+     */
+    public int getColumnTop(int x) {
+        return columnTops[x];
+    }
+
+    /**
+     * Get the height of the stack of blocks in a column, measured from the bottom of the Board.
+     * @param x The column.
+     * @return The height, in cells. 0 if the column is empty.
+     */
+    public int getColumnHeight(int x) {
+        return rows - columnTops[x];
+    }
+
+    /**
+     * Get the number of holes in a column. A hole is an empty cell with an occupied cell somewhere above it.
+     * @param x The column.
+     * @return The number of holes.
+     */
+    public int getColumnHoles(int x) {
+        return columnHoles[x];
+    }
+
+    /**
+     * Get the number of holes on the whole Board.
+     * @return The number of holes.
+     */
+    public int getHoleCount() {
+        return holeCount;
+    }
+
+    /**
+     * Change the number of holes in a column.
+     * @param x The column.
+     * @param amount The number of holes to add. Negative to remove holes.
+     */
+    private void addHoles(int x, int amount) {
+        columnHoles[x] += amount;
+        holeCount += amount;
+    }
+
+    /**
+     * Work out the top and the number of holes of every column again, after whole rows have moved. Goes through the
+     * rows from top to bottom once, handling all of the columns of a row at the same time: 'covered' has a bit set for
+     * every column that has had a block so far, so the empty cells of those columns are holes.
+     */
+    private void updateColumns() {
+        changeCount ++;
+        Arrays.fill(columnTops, rows);
+        Arrays.fill(columnHoles, 0);
+        holeCount = 0;
+
+        long covered = 0;
+        for (int index = 0; index < rowMasks.length; index ++) {
+            long mask = rowMasks[index];
+
+            //Columns whose first block is in this row.
+            long newlyCovered = mask & ~covered;
+            while (newlyCovered != 0) {
+                columnTops[Long.numberOfTrailingZeros(newlyCovered)] = index - HIDDEN_ROWS;
+                newlyCovered &= newlyCovered - 1;
+            }
+            covered |= mask;
+
+            //Empty cells under a block.
+            long holes = covered & ~mask;
+            holeCount += Long.bitCount(holes);
+            while (holes != 0) {
+                columnHoles[Long.numberOfTrailingZeros(holes)] ++;
+                holes &= holes - 1;
+            }
+        }
+    }
+
+    /**
+     * Checks to see if the cell is within the Board, including the hidden rows.
+     * @param x The column.
+     * @param y The row.
+     * @return True for yes, false for no.
+     */
+    public boolean isInside(int x, int y) {
+        return x >= 0 && x < columns && y >= -HIDDEN_ROWS && y < rows;
+    }
+
+    /**
+     * Get the index of the cell in the colour plane.
+     * @param x The column.
+     * @param y The row.
+     * @return The index.
+     */
+    private int getCellIndex(int x, int y) {
+        return ((y + HIDDEN_ROWS) * columns) + x;
+    }
+
+    /*  Getters */
+
+    /**
+     * Get the number of visible rows.
+     * @return The number of rows.
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Get the number of columns.
+     * @return The number of columns.
+     */
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * Get the number of cells, including the hidden rows. This is the number of bytes copied by copyColours().
+     * @return The number of cells.
+     */
+    public int getCellCount() {
+        return colours.length;
+    }
+
+    /**
+     * Get the number of times that the Board has changed. If the number is the same as before, nothing on the Board
+     * has changed since then.
+     * @return The number of changes.
+     */
+    public int getChangeCount() {
+        return changeCount;
+    }
+
+    /**
+     * Get the bitmask of a row where every cell is occupied.
+     * @return The bitmask.
+     */
+    public long getFullRowMask() {
+        return fullRowMask;
+    }
+}
@@ -1,3 +1,4 @@
+import java.awt.Rectangle;
 import java.awt.event.MouseEvent;
 
 /**
@@ -34,14 +35,31 @@ public class ButtonManager extends TextComponentManager {
 	 * Check whether or not the mouse is hovering over the buttons. Set the state of
 	 * the button accordingly, so that it will draw with the correct colours/shape.
 	 * @param e The mouse event.
+	 * @return The area covered by the buttons whose state changed, which needs to be redrawn. Null if no button
+	 * changed.
 	 */
-	public void updateButtonStates(MouseEvent e) {
+	public Rectangle updateButtonStates(MouseEvent e) {
+
+		Rectangle changedArea = null;
 
 		//Loop through each button.
 		for (int i = 0; i < getComponents().size(); i ++) {
+			TextComponent button = getComponents().get(i);
+			boolean wasMouseOver = button.isMouseOver();
 			//Check to see if the mouse is over the button, and update the state accordingly.
-			getComponents().get(i).checkMouseOver(e);
+			button.checkMouseOver(e);
+
+			//The button will look different, so it needs to be redrawn.
+			if (button.isMouseOver() != wasMouseOver) {
+				if (changedArea == null) {
+					changedArea = button.getBounds();
+				}
+				else {
+					changedArea.add(button.getBounds());
+				}
+			}
 		}
+		return changedArea;
 	}
 
 	/**
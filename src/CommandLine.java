@@ -0,0 +1,71 @@
+/**
+ * Reads the values of command line arguments for the tools that run without a window (see BatchRunner and
+ * HeuristicTuner), so that they all check their arguments the same way. A value that is missing or not valid throws an
+ * IllegalArgumentException that describes the problem, which the tool prints with its usage.
+ */
+final class CommandLine {
+
+    private CommandLine() {
+    }
+
+    /**
+     * Reads the number after an argument, which must be above 0.
+     * @param args The arguments.
+     * @param i The index of the number, just after the argument.
+     * @return The number.
+     * @throws IllegalArgumentException If there is no number, or it is not a whole number above 0.
+     */
+    static int positiveValue(String[] args, int i) {
+        return intValue(args, i, 1, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Reads the number after an argument, which must be in a range.
+     * @param args The arguments.
+     * @param i The index of the number, just after the argument.
+     * @param min The lowest number allowed.
+     * @param max The highest number allowed.
+     * @return The number.
+     * @throws IllegalArgumentException If there is no number, or it is not a whole number from min to max.
+     */
+    static int intValue(String[] args, int i, int min, int max) {
+        long value = longValue(args, i);
+        if (value < min || value > max) {
+            throw new IllegalArgumentException(args[i - 1] + " must be from " + min + " to " + max + ", not "
+                    + args[i]);
+        }
+        return (int) value;
+    }
+
+    /**
+     * Reads the number after an argument.
+     * @param args The arguments.
+     * @param i The index of the number, just after the argument.
+     * @return The number.
+     * @throws IllegalArgumentException If there is no number, or it is not a whole number.
+     */
+    static long longValue(String[] args, int i) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException(args[i - 1] + " needs a number after it.");
+        }
+        try {
+            return Long.parseLong(args[i]);
+        } catch (NumberFormatException exception) {
+            throw new IllegalArgumentException(args[i - 1] + " needs a whole number, not " + args[i]);
+        }
+    }
+
+    /**
+     * Reads the text after an argument.
+     * @param args The arguments.
+     * @param i The index of the text, just after the argument.
+     * @return The text.
+     * @throws IllegalArgumentException If there is no text.
+     */
+    static String stringValue(String[] args, int i) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException(args[i - 1] + " needs a value after it.");
+        }
+        return args[i];
+    }
+}
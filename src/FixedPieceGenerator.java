@@ -0,0 +1,54 @@
+import java.awt.*;
+
+/**
+ * Generates pieces from a fixed list of shapes and colour codes, in order. When the end of the list is reached, it
+ * starts again from the beginning. Useful for playing back the same pieces exactly, and for testing.
+ */
+public class FixedPieceGenerator extends PieceGenerator {
+
+    //The shapes (see TetrominoShape), and the colour codes (see Block.getColourCode()) of the pieces.
+    private int[] shapes;
+    private int[] colourCodes;
+
+    //The position in the lists of the next shape and colour.
+    private int shapePosition = 0;
+    private int colourPosition = 0;
+
+    /**
+     * Constructor.
+     * @param shapes The shapes of the pieces, in order. Must not be empty.
+     * @param colourCodes The colour codes of the pieces, in order. Must not be empty. Can be a different length than
+     *                    the shapes.
+     */
+    public FixedPieceGenerator(int[] shapes, int[] colourCodes) {
+        if (shapes.length == 0 || colourCodes.length == 0) {
+            throw new IllegalArgumentException("A FixedPieceGenerator needs at least one shape and one colour.");
+        }
+        for (int shape : shapes) {
+            if (shape < 0 || shape >= TetrominoShape.SHAPE_COUNT) {
+                throw new IllegalArgumentException("Invalid shape: " + shape);
+            }
+        }
+        for (int colourCode : colourCodes) {
+            if (colourCode < 1 || colourCode > Block.getColourCount()) {
+                throw new IllegalArgumentException("Invalid colour code: " + colourCode);
+            }
+        }
+        this.shapes = shapes.clone();
+        this.colourCodes = colourCodes.clone();
+    }
+
+    @Override
+    public int nextShape() {
+        int shape = shapes[shapePosition];
+        shapePosition = (shapePosition + 1) % shapes.length;
+        return shape;
+    }
+
+    @Override
+    public Color nextColour() {
+        Color colour = Block.getColour(colourCodes[colourPosition]);
+        colourPosition = (colourPosition + 1) % colourCodes.length;
+        return colour;
+    }
+}
@@ -1,3 +1,7 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+
 import javax.swing.JFrame;
 import javax.swing.SwingUtilities;
 
@@ -5,13 +9,75 @@ import javax.swing.SwingUtilities;
  * The only purpose of this class is to create and display the main
  * window. 
  * Implements Runnable, to run in a separate thread.
+ *
+ * Run with the argument "-active" to draw the game from its own thread (see RenderLoop), instead of with Swing timers.
+ * Run with the argument "-ai" to let the computer play (see AutoPlayer), and add "-table n" to let it store the scores of
+ * up to n Boards (see TranspositionTable). The hit rate of the table is printed when the program closes.
+ * Run with the arguments "-replay file" to watch a saved replay (see Replay), and "-speed x" to play it x times as fast.
+ * If the file is a ReplayArchive, add "-game id" to choose the game. By default, the last game in it is played.
  */
 public class GUIMain implements Runnable{
 
-	public static void main(String[] args) {
+	//The command line argument that turns on active rendering.
+	final private static String ACTIVE_RENDERING_ARGUMENT = "-active";
+
+	//The command line argument that lets the computer play.
+	final private static String AUTO_PLAYER_ARGUMENT = "-ai";
+	//The command line argument that sets the size of the computer player`s TranspositionTable.
+	final private static String TABLE_ARGUMENT = "-table";
+
+	//The command line arguments that play a replay, and set how fast to play it.
+	final private static String REPLAY_ARGUMENT = "-replay";
+	final private static String SPEED_ARGUMENT = "-speed";
+	final private static String GAME_ARGUMENT = "-game";
+
+	//Whether or not to use active rendering.
+	private boolean activeRendering = false;
+
+	//Whether or not the computer plays.
+	private boolean autoPlayer = false;
+
+	//The number of entries in the computer player`s TranspositionTable, or 0 to not use one.
+	private int tableSize = 0;
+
+	//The replay to play, or null to play new games, and how fast to play it.
+	private Replay replay = null;
+	private double speed = 1;
+
+	public static void main(String[] args) throws IOException {
 		//Use invokeLater command to tell Java to create GUI in separate thread, specifically, the Event Dispatching Thread.
 		//It does this by calling the run method.
 		GUIMain thread = new GUIMain();
+		String replayFile = null;
+		long game = -1;
+		for (int i = 0; i < args.length; i ++) {
+			if (args[i].equals(ACTIVE_RENDERING_ARGUMENT)) {
+				thread.activeRendering = true;
+			}
+			else if (args[i].equals(AUTO_PLAYER_ARGUMENT)) {
+				thread.autoPlayer = true;
+			}
+			else if (args[i].equals(TABLE_ARGUMENT) && i + 1 < args.length) {
+				thread.tableSize = Integer.parseInt(args[++ i]);
+			}
+			else if (args[i].equals(REPLAY_ARGUMENT) && i + 1 < args.length) {
+				replayFile = args[++ i];
+			}
+			else if (args[i].equals(SPEED_ARGUMENT) && i + 1 < args.length) {
+				thread.speed = Double.parseDouble(args[++ i]);
+			}
+			else if (args[i].equals(GAME_ARGUMENT) && i + 1 < args.length) {
+				game = Long.parseLong(args[++ i]);
+			}
+		}
+		if (replayFile != null && replayFile.endsWith(ReplayArchive.EXTENSION)) {
+			try (ReplayArchive archive = ReplayArchive.open(Paths.get(replayFile), true)) {
+				thread.replay = archive.getReplay(game == -1 ? archive.size() - 1 : game);
+			}
+		}
+		else if (replayFile != null) {
+			thread.replay = Replay.load(Paths.get(replayFile));
+		}
 		SwingUtilities.invokeLater(thread);
 	}
 	
@@ -24,6 +90,20 @@ public class GUIMain implements Runnable{
 
 		//Create an instance of our CustomPanel.
 		GamePanel panel = new GamePanel();
+		if (autoPlayer == true) {
+			AutoPlayer player = new AutoPlayer(Heuristic.DEFAULT, ForkJoinPool.commonPool());
+			if (tableSize > 0) {
+				TranspositionTable table = new TranspositionTable(tableSize, GamePanel.GAME_ROWS);
+				player.setTranspositionTable(table);
+				Runtime.getRuntime().addShutdownHook(new Thread(() -> System.out.printf(
+						"Transposition table: %d hits, %d misses, %.1f%% hit rate%n", table.getHits(),
+						table.getMisses(), table.getHitRate() * 100)));
+			}
+			panel.setAutoPlayer(player);
+		}
+		if (replay != null) {
+			panel.setReplay(replay, speed);
+		}
 		
 		//Disable resizing.
 		mainFrame.setResizable(false);
@@ -41,5 +121,10 @@ public class GUIMain implements Runnable{
 
 		//Make the frame visible.
 		mainFrame.setVisible(true);
+
+		//The window must be visible before it can be drawn on directly.
+		if (activeRendering == true) {
+			panel.startActiveRendering(mainFrame);
+		}
 	}
 }
\ No newline at end of file
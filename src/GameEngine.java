@@ -0,0 +1,547 @@
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.SplittableRandom;
+
+/**
+ * This class contains the rules of the game: it moves the current Tetromino, drops it, lands it, clears the full rows,
+ * keeps track of the score, and detects when the game is over. It does not draw anything and does not use any timers,
+ * so it can be run outside of the game window, as fast as the CPU allows.
+ *
+ * The game moves forward one tick at a time, by calling step() with the input for that tick. There are TICKS_PER_SECOND
+ * ticks in a second of real time. Every time enough ticks have passed, the current Tetromino drops by one row.
+ *
+ * The whole state of a game can be saved as a snapshot with toSnapshot(), and a game can be carried on from a snapshot
+ * with fromSnapshot(). A snapshot is a small byte array:
+ * - The bytes 'T', 'S', 'N', 'P' and the version, then the columns and rows of the game Grid as shorts.
+ * - The kind of PieceGenerator (GENERATOR_OTHER, GENERATOR_BAG or GENERATOR_UNIFORM) and its seed, as a long.
+ * - The ticks (long), the ticks since the last drop (int), the pieces landed (long), the score (int), the drop time
+ *   (int) and whether or not the game is over (byte).
+ * - The current Tetromino: its shape, rotation and colour code as bytes, then the column and row of its origin as
+ *   shorts. The next Tetromino: its shape and colour code as bytes.
+ * - The game Grid, one byte per cell, with the colour code of each stationary block (see Grid.copyCells()).
+ * The state of the generator is not stored. Instead, a new generator is started the same way and skips the pieces that
+ * have already been generated, which is two more than the number of pieces landed.
+ */
+public class GameEngine {
+
+    //The inputs that can be given to the game in each tick. DROP moves the Tetromino down by one row, HARD_DROP moves
+    //it all the way down and lands it right away.
+    public enum Input {NONE, LEFT, RIGHT, ROTATE, DROP, HARD_DROP};
+
+    //The number of ticks in one second.
+    final public static int TICKS_PER_SECOND = 60;
+
+    //How long to wait, in millis, before dropping the Tetromino again by one cell.
+    final public static int INITIAL_DROP_TIME = 500;
+
+    //The fewest columns and rows of a game Grid: the length of the I Tetromino, so that it fits lying down and
+    //standing up.
+    final public static int MIN_SIZE = 4;
+
+    //The main game Grid, and the side Grid that holds the next Tetromino.
+    private Grid gameGrid;
+    private Grid sideGrid;
+
+    //Decides the shape and colour of every Tetromino in the game.
+    private PieceGenerator generator;
+
+    //The Tetrominoes.
+    private Tetromino currentTetromino;
+    private Tetromino nextTetromino;
+
+    //How long to wait, in millis, before dropping the Tetromino again by one cell.
+    private int dropTime;
+
+    //The number of ticks since the game started, and since the Tetromino last dropped by itself.
+    private long ticks = 0;
+    private int ticksSinceDrop = 0;
+
+    //The number of Tetrominoes that have landed.
+    private long piecesLanded = 0;
+
+    //The score.
+    private int score = 0;
+
+    //Whether or not the game is over.
+    private boolean gameOver = false;
+
+    //The first bytes of every snapshot, and the version of the format.
+    final private static byte[] SNAPSHOT_MAGIC = {'T', 'S', 'N', 'P'};
+    final private static int SNAPSHOT_VERSION = 1;
+    //The size of a snapshot, not counting the cells.
+    final private static int SNAPSHOT_HEADER_SIZE = 5 + 4 + 9 + 29 + 7 + 2;
+
+    //The most pieces that a snapshot can have landed. Restoring skips every one of them in the generator, so this
+    //keeps a damaged snapshot from taking too long to restore.
+    final private static long MAX_SNAPSHOT_PIECES = 1000000;
+
+    //The kinds of generator that a snapshot can start again by itself.
+    final private static int GENERATOR_OTHER = 0;
+    final private static int GENERATOR_BAG = 1;
+    final private static int GENERATOR_UNIFORM = 2;
+
+    /**
+     * Constructor. Starts a new game on the specified Grids, with pieces from a randomly seeded 7-bag (see
+     * BagPieceGenerator). Any blocks already on the Grids are removed.
+     * @param gameGrid The Grid that the game is played on.
+     * @param sideGrid The Grid that displays the next Tetromino. Must be at least 4 by 4.
+     */
+    public GameEngine(Grid gameGrid, Grid sideGrid) {
+        this(gameGrid, sideGrid, new BagPieceGenerator(new SplittableRandom().nextLong()));
+    }
+
+    /**
+     * Constructor. Starts a new game on the specified Grids. Any blocks already on the Grids are removed.
+     * @param gameGrid The Grid that the game is played on.
+     * @param sideGrid The Grid that displays the next Tetromino. Must be at least 4 by 4.
+     * @param generator Decides the shape and colour of every Tetromino. The same generator, started the same way,
+     *                  gives the same game for the same inputs.
+     */
+    public GameEngine(Grid gameGrid, Grid sideGrid, PieceGenerator generator) {
+        this.gameGrid = gameGrid;
+        this.sideGrid = sideGrid;
+        this.generator = generator;
+        gameGrid.removeAllBlocks();
+        sideGrid.removeAllBlocks();
+
+        //Create the Tetromino that is next in line.
+        nextTetromino = new Tetromino(sideGrid);
+        nextTetromino.generateNewPiece(generator);
+
+        //Create the first Tetromino.
+        currentTetromino = new Tetromino(gameGrid);
+        currentTetromino.generateNewPiece(generator);
+        gameGrid.setGhostPiece(currentTetromino);
+
+        dropTime = INITIAL_DROP_TIME;
+    }
+
+    /**
+     * Constructor. Starts a new game on new Grids. Useful when the game does not need to be drawn.
+     * @param columns The number of columns of the game Grid.
+     * @param rows The number of rows of the game Grid.
+     */
+    public GameEngine(int columns, int rows) {
+        this(new Grid(0, 0, columns, rows), new Grid(0, 0, Tetromino.getSIZE(), Tetromino.getSIZE()));
+    }
+
+    /**
+     * Constructor. Starts a new game on new Grids, with the specified pieces.
+     * @param columns The number of columns of the game Grid.
+     * @param rows The number of rows of the game Grid.
+     * @param generator Decides the shape and colour of every Tetromino.
+     */
+    public GameEngine(int columns, int rows, PieceGenerator generator) {
+        this(new Grid(0, 0, columns, rows), new Grid(0, 0, Tetromino.getSIZE(), Tetromino.getSIZE()), generator);
+    }
+
+    /**
+     * Save the whole state of the game as a snapshot. Does not change the game.
+     * @return The snapshot, in the layout described at the top of this class.
+     */
+    public byte[] toSnapshot() {
+        Board board = gameGrid.getBoard();
+        byte[] snapshot = new byte[SNAPSHOT_HEADER_SIZE + board.getCellCount()];
+        ByteBuffer buffer = ByteBuffer.wrap(snapshot);
+
+        buffer.put(SNAPSHOT_MAGIC);
+        buffer.put((byte) SNAPSHOT_VERSION);
+        buffer.putShort((short) gameGrid.getColumns());
+        buffer.putShort((short) gameGrid.getRows());
+
+        if (generator instanceof BagPieceGenerator) {
+            buffer.put((byte) GENERATOR_BAG);
+            buffer.putLong(((BagPieceGenerator) generator).getSeed());
+        }
+        else if (generator instanceof UniformPieceGenerator) {
+            buffer.put((byte) GENERATOR_UNIFORM);
+            buffer.putLong(((UniformPieceGenerator) generator).getSeed());
+        }
+        else {
+            buffer.put((byte) GENERATOR_OTHER);
+            buffer.putLong(0);
+        }
+
+        buffer.putLong(ticks);
+        buffer.putInt(ticksSinceDrop);
+        buffer.putLong(piecesLanded);
+        buffer.putInt(score);
+        buffer.putInt(dropTime);
+        buffer.put((byte) (gameOver == true ? 1 : 0));
+
+        buffer.put((byte) currentTetromino.getShape());
+        buffer.put((byte) currentTetromino.getRotation());
+        buffer.put((byte) Block.getColourCode(currentTetromino.getColour()));
+        buffer.putShort((short) currentTetromino.getOriginX());
+        buffer.putShort((short) currentTetromino.getOriginY());
+        buffer.put((byte) nextTetromino.getShape());
+        buffer.put((byte) Block.getColourCode(nextTetromino.getColour()));
+
+        gameGrid.copyCells(snapshot, buffer.position());
+        return snapshot;
+    }
+
+    /**
+     * Carry on a game from a snapshot, on the specified Grids. The generator is started again from the seed in the
+     * snapshot.
+     * @param snapshot The snapshot, from toSnapshot().
+     * @param gameGrid The Grid that the game is played on. Must be the size of the one in the snapshot.
+     * @param sideGrid The Grid that displays the next Tetromino. Must be at least 4 by 4.
+     * @return The engine, in the same state as when the snapshot was taken.
+     * @throws IllegalArgumentException If the snapshot is not valid, or its generator can not be started again.
+     */
+    public static GameEngine fromSnapshot(byte[] snapshot, Grid gameGrid, Grid sideGrid) {
+        int kind = getSnapshotGenerator(snapshot);
+        long seed = ByteBuffer.wrap(snapshot).getLong(SNAPSHOT_MAGIC.length + 1 + 4 + 1);
+        if (kind == GENERATOR_BAG) {
+            return fromSnapshot(snapshot, gameGrid, sideGrid, new BagPieceGenerator(seed));
+        }
+        else if (kind == GENERATOR_UNIFORM) {
+            return fromSnapshot(snapshot, gameGrid, sideGrid, new UniformPieceGenerator(seed));
+        }
+        throw new IllegalArgumentException("The generator of this snapshot must be given.");
+    }
+
+    /**
+     * Carry on a game from a snapshot, on the specified Grids, with the specified generator.
+     * @param snapshot The snapshot, from toSnapshot().
+     * @param gameGrid The Grid that the game is played on. Must be the size of the one in the snapshot.
+     * @param sideGrid The Grid that displays the next Tetromino. Must be at least 4 by 4.
+     * @param generator A new generator, started the same way as the one of the saved game. It is moved forward to
+     *                  where that one was.
+     * @return The engine, in the same state as when the snapshot was taken.
+     * @throws IllegalArgumentException If the snapshot is not valid.
+     */
+    public static GameEngine fromSnapshot(byte[] snapshot, Grid gameGrid, Grid sideGrid, PieceGenerator generator) {
+        getSnapshotGenerator(snapshot);
+        ByteBuffer buffer = ByteBuffer.wrap(snapshot);
+        buffer.position(SNAPSHOT_MAGIC.length + 1);
+        try {
+            int columns = buffer.getShort();
+            int rows = buffer.getShort();
+            if (columns != gameGrid.getColumns() || rows != gameGrid.getRows()) {
+                throw new IllegalArgumentException("The snapshot is of a " + columns + " by " + rows + " Grid.");
+            }
+            if (snapshot.length != SNAPSHOT_HEADER_SIZE + gameGrid.getBoard().getCellCount()) {
+                throw new IllegalArgumentException("The snapshot is the wrong size.");
+            }
+            buffer.get();
+            buffer.getLong();
+
+            long ticks = buffer.getLong();
+            int ticksSinceDrop = buffer.getInt();
+            long piecesLanded = buffer.getLong();
+            int score = buffer.getInt();
+            int dropTime = buffer.getInt();
+            boolean gameOver = buffer.get() != 0;
+            //Every piece lands on a different tick, and skipping the pieces must not take long.
+            if (ticks < 0 || ticksSinceDrop < 0 || piecesLanded < 0 || piecesLanded > ticks
+                    || piecesLanded > MAX_SNAPSHOT_PIECES || score < 0 || dropTime < 1) {
+                throw new IllegalArgumentException("Invalid counters in snapshot.");
+            }
+
+            int shape = buffer.get();
+            int rotation = buffer.get();
+            int colourCode = buffer.get();
+            int originX = buffer.getShort();
+            int originY = buffer.getShort();
+            int nextShape = buffer.get();
+            int nextColourCode = buffer.get();
+            checkPiece(shape, rotation, colourCode);
+            checkPiece(nextShape, 0, nextColourCode);
+
+            int cells = buffer.position();
+            for (int i = cells; i < snapshot.length; i ++) {
+                if (snapshot[i] < 0 || snapshot[i] > Block.getColourCount()) {
+                    throw new IllegalArgumentException("Invalid colour code in snapshot.");
+                }
+            }
+
+            //Every block of the current Tetromino must be on an empty cell of the Board.
+            Board board = gameGrid.getBoard();
+            for (int i = 0; i < TetrominoShape.BLOCK_COUNT; i ++) {
+                int x = originX + TetrominoShape.getOffsetX(shape, rotation, i);
+                int y = originY + TetrominoShape.getOffsetY(shape, rotation, i);
+                if (board.isInside(x, y) == false
+                        || snapshot[cells + ((y + Board.HIDDEN_ROWS) * columns) + x] != 0) {
+                    throw new IllegalArgumentException("Invalid Tetromino position in snapshot.");
+                }
+            }
+
+            //Starting the engine generates the first two pieces. Skip the rest of the ones that were generated.
+            GameEngine engine = new GameEngine(gameGrid, sideGrid, generator);
+            engine.ticks = ticks;
+            engine.ticksSinceDrop = ticksSinceDrop;
+            engine.piecesLanded = piecesLanded;
+            engine.score = score;
+            engine.dropTime = dropTime;
+            engine.gameOver = gameOver;
+            generator.skip(piecesLanded);
+
+            //Put the blocks and the Tetrominoes back.
+            gameGrid.setCells(snapshot, cells);
+            sideGrid.removeAllBlocks();
+            engine.currentTetromino = new Tetromino(gameGrid);
+            engine.currentTetromino.createPiece(shape, Block.getColour(colourCode), rotation, originX, originY);
+            gameGrid.setGhostPiece(engine.currentTetromino);
+            engine.nextTetromino = new Tetromino(sideGrid);
+            engine.nextTetromino.createPiece(nextShape, Block.getColour(nextColourCode), 0,
+                    TetrominoShape.getSpawnOriginX(nextShape), TetrominoShape.getSpawnOriginY(nextShape));
+            return engine;
+        } catch (BufferUnderflowException exception) {
+            throw new IllegalArgumentException("The snapshot ends too early.");
+        }
+    }
+
+    /**
+     * Checks the start of a snapshot, and gets the kind of generator that it was taken with.
+     * @param snapshot The snapshot.
+     * @return GENERATOR_OTHER, GENERATOR_BAG or GENERATOR_UNIFORM.
+     * @throws IllegalArgumentException If the snapshot is not valid.
+     */
+    private static int getSnapshotGenerator(byte[] snapshot) {
+        if (snapshot.length < SNAPSHOT_HEADER_SIZE) {
+            throw new IllegalArgumentException("The snapshot ends too early.");
+        }
+        for (int i = 0; i < SNAPSHOT_MAGIC.length; i ++) {
+            if (snapshot[i] != SNAPSHOT_MAGIC[i]) {
+                throw new IllegalArgumentException("Not a snapshot.");
+            }
+        }
+        if (snapshot[SNAPSHOT_MAGIC.length] != SNAPSHOT_VERSION) {
+            throw new IllegalArgumentException("Unsupported snapshot version: " + snapshot[SNAPSHOT_MAGIC.length]);
+        }
+        return snapshot[SNAPSHOT_MAGIC.length + 1 + 4];
+    }
+
+    /**
+     * Checks that a Tetromino read from a snapshot is valid.
+     * @param shape The shape.
+     * @param rotation The rotation.
+     * @param colourCode The colour code.
+     * @throws IllegalArgumentException If it is not valid.
+     */
+    private static void checkPiece(int shape, int rotation, int colourCode) {
+        if (shape < 0 || shape >= TetrominoShape.SHAPE_COUNT || rotation < 0
+                || rotation >= TetrominoShape.ROTATION_COUNT || colourCode < 1 || colourCode > Block.getColourCount()) {
+            throw new IllegalArgumentException("Invalid Tetromino in snapshot.");
+        }
+    }
+
+    /**
+     * Move the game forward by one tick. The input is applied first, and then the Tetromino drops by one cell if
+     * enough time has passed. Does nothing once the game is over.
+     * @param input The input for this tick.
+     */
+    public void step(Input input) {
+
+        if (gameOver == true) {
+            return;
+        }
+
+        if (input == Input.LEFT) {
+            currentTetromino.moveLeft();
+        }
+        else if (input == Input.RIGHT) {
+            currentTetromino.moveRight();
+        }
+        else if (input == Input.ROTATE) {
+            currentTetromino.rotate();
+        }
+        else if (input == Input.DROP) {
+            dropTetromino();
+        }
+        else if (input == Input.HARD_DROP) {
+            hardDropTetromino();
+        }
+        //Make sure nothing is out of bounds.
+        if (input != Input.NONE && gameOver == false) {
+            currentTetromino.stayWithinBounds();
+        }
+
+        ticks ++;
+        ticksSinceDrop ++;
+
+        //Time to drop the Tetromino by one cell.
+        if (ticksSinceDrop >= getDropTicks() && gameOver == false) {
+            ticksSinceDrop = 0;
+            dropTetromino();
+        }
+    }
+
+    /**
+     * Drop the Tetromino by one cell/row. Detects when the Tetromino has hit the ground, at which point it is out of
+     * play. Also detects when Tetromino lands on the Terminal line of the game Grid, at which point the game is over.
+     */
+    private void dropTetromino() {
+
+        boolean canDropDown = currentTetromino.moveDown();
+
+        //Land the Tetromino : it can no longer drop.
+        if (canDropDown == false) {
+            landTetromino();
+        }
+    }
+
+    /**
+     * Move the Tetromino straight to the row that it will land on, and land it right away. The landing row is found
+     * from the tops of the columns below the Tetromino, instead of dropping it one row at a time.
+     */
+    private void hardDropTetromino() {
+        currentTetromino.dropToBottom();
+        landTetromino();
+        //The new Tetromino gets the full amount of time before it drops by itself.
+        ticksSinceDrop = 0;
+    }
+
+    /**
+     * Land the Tetromino: it is out of play, and the next Tetromino takes its place. Also detects when the Tetromino
+     * lands on the Terminal line of the game Grid, at which point the game is over.
+     */
+    private void landTetromino() {
+
+        //Release all of the blocks that were formerly a part of the piece.
+        currentTetromino.releaseBlocks();
+        piecesLanded ++;
+
+        //Use the next Tetromino.
+        currentTetromino = nextTetromino;
+        movePieceToGameGrid(currentTetromino);
+        gameGrid.setGhostPiece(currentTetromino);
+
+        //Remove all blocks from the side Grid.
+        sideGrid.removeAllBlocks();
+        //Generate a new piece that will be next in line.
+        nextTetromino = new Tetromino(sideGrid);
+        nextTetromino.generateNewPiece(generator);
+
+        //Check to see if any line was formed. If yes, add to score and delete row.
+        checkLinesFormed();
+
+        //Check to see if any block landed in the terminal line. If yes, the game is over.
+        if (gameGrid.blockOnTerminalLine() == true) {
+            gameOver = true;
+        }
+    }
+
+    /**
+     * Move the upcoming Tetromino to the game Grid.
+     * @param tetromino The Tetromino to move.
+     */
+    private void movePieceToGameGrid(Tetromino tetromino) {
+
+        //Change the Grid from the sideGrid to the gameGrid.
+        tetromino.changeGrid(gameGrid);
+
+        //Move up so that it initially starts outside and above of the game Grid.
+        for (int i = 0; i < Tetromino.getSIZE(); i ++) {
+            tetromino.moveUp();
+        }
+
+        //Center the Tetromino, as much as possible.
+        int offsetX = (gameGrid.getColumns() - Tetromino.getSIZE()) / 2;
+        for (int i = 0; i < offsetX; i ++) {
+            tetromino.moveRight();
+        }
+    }
+
+    /**
+     * Checks to see if any horizontal line of blocks was formed on the Grid. If a line was formed, delete all of the
+     * blocks in that row, increase the score, and drop all of the blocks that are above that row by one cell.
+     */
+    private void checkLinesFormed() {
+        //Delete all full rows at once, and drop down all of the blocks that are above them. One point per row.
+        int[] clearedRows = gameGrid.clearFullRows();
+        score += clearedRows.length;
+    }
+
+    /*  Getters */
+
+    /**
+     * Get the number of ticks between each time the Tetromino drops by itself.
+     * @return The number of ticks. At least 1.
+     */
+    public int getDropTicks() {
+        return Math.max(1, (dropTime * TICKS_PER_SECOND) / 1000);
+    }
+
+    /**
+     * Get how long to wait before the Tetromino drops by itself.
+     * @return The time, in millis.
+     */
+    public int getDropTime() {
+        return dropTime;
+    }
+
+    /**
+     * Get the generator that decides the shape and colour of every Tetromino.
+     * @return The generator.
+     */
+    public PieceGenerator getGenerator() {
+        return generator;
+    }
+
+    /**
+     * Get the Tetromino that is currently being controlled.
+     * @return The current Tetromino.
+     */
+    public Tetromino getCurrentTetromino() {
+        return currentTetromino;
+    }
+
+    /**
+     * Get the Tetromino that is next in line.
+     * @return The next Tetromino.
+     */
+    public Tetromino getNextTetromino() {
+        return nextTetromino;
+    }
+
+    /**
+     * Get the Grid that the game is played on.
+     * @return The game Grid.
+     */
+    public Grid getGameGrid() {
+        return gameGrid;
+    }
+
+    /**
+     * Get the Grid that holds the next Tetromino.
+     * @return The side Grid.
+     */
+    public Grid getSideGrid() {
+        return sideGrid;
+    }
+
+    /**
+     * Get the number of ticks since the game started.
+     * @return The number of ticks.
+     */
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Get the number of Tetrominoes that have landed since the game started.
+     * @return The number of Tetrominoes.
+     */
+    public long getPiecesLanded() {
+        return piecesLanded;
+    }
+
+    /**
+     * Get the score.
+     * @return The score.
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Returns whether or not the game is over.
+     * @return True for yes, false for no.
+     */
+    public boolean isGameOver() {
+        return gameOver;
+    }
+}
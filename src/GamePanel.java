@@ -1,12 +1,27 @@
 import java.awt.*;
 import java.awt.event.*;
+import java.io.File;
+import java.io.IOException;
 import java.net.URI;
-
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.SplittableRandom;
+
+import javax.swing.JFrame;
 import javax.swing.JPanel;
 import javax.swing.Timer;
 
 /**
- * Class that is the game window. It contains the game logic and draw methods.
+ * Class that is the game window. It contains the draw methods, and passes the user`s input on to the GameEngine, which
+ * contains the game logic.
+ *
+ * By default, a Swing Timer updates and repaints the panel. Alternatively, startActiveRendering() hands this over to a
+ * RenderLoop thread. Either way, the game moves forward one tick for every 1/TICKS_PER_SECOND of a second that has
+ * really passed, no matter how often the panel is updated. All of the methods that change the panel are synchronized,
+ * since the RenderLoop thread and the Event Dispatching Thread both use them.
  */
 public class GamePanel extends JPanel implements ActionListener, MouseMotionListener, MouseListener, KeyListener{
 
@@ -40,6 +55,18 @@ public class GamePanel extends JPanel implements ActionListener, MouseMotionList
     //Amount of time, in millis, to delay to get target FPS
     private double delayTime;
 
+    //The time, in nanoseconds, when the game was last moved forward. -1 if it has not been yet.
+    private long previousUpdateTime = -1;
+    //Real time that has passed but has not been turned into ticks yet, multiplied by the number of ticks per second.
+    //This way, a tick is exactly one billion of these units, with no rounding.
+    private long unusedTickTime = 0;
+    //The most ticks to run at once. If the game falls further behind than this, the extra time is skipped.
+    final private static int MAX_TICKS_PER_UPDATE = 5;
+
+    //Whether or not a RenderLoop is drawing the panel instead of Swing, and the loop itself.
+    private boolean activeRendering = false;
+    private RenderLoop renderLoop = null;
+
     //Time at which the program started.
     private long programStartTime;
     private long programCurrentTime;
@@ -72,6 +99,10 @@ public class GamePanel extends JPanel implements ActionListener, MouseMotionList
 	final static private int BUTTON_WIDTH = 300;
 	final static private int BUTTON_HEIGHT = 100;
 
+    //The size of the main game Grid, in cells.
+    final static int GAME_COLUMNS = 10;
+    final static int GAME_ROWS = 16;
+
     //The main game Grid.
     private Grid gameGrid;
     //The side Grid to display the next Tetromino.
@@ -80,8 +111,9 @@ public class GamePanel extends JPanel implements ActionListener, MouseMotionList
     //The button manager, to manage the buttons.
     private ButtonManager buttonManager;
 
-    //All the buttons. There will be a maximum of three buttons at any one time.
-    private Button but1,but2,but3;
+    //All the buttons. There will be a maximum of four buttons at any one time. The fourth is only used for
+    //'Continue' in the main menu, and 'Save and Quit' in the pause menu.
+    private Button but1,but2,but3,but4;
 
     //The textboxes.
     private TextBox textBox1, textBox2;
@@ -89,25 +121,49 @@ public class GamePanel extends JPanel implements ActionListener, MouseMotionList
     //Manager for the textboxes.
     private TextComponentManager textBoxManager;
 
-    //The Tetrominoes.
-    private Tetromino currentTetromino;
-    private Tetromino nextTetromino;
+    //The game logic.
+    private GameEngine engine;
+
+    //Inputs from the keyboard and mouse that have not been given to the engine yet. One is given each tick.
+    private ArrayDeque<GameEngine.Input> inputQueue = new ArrayDeque<>();
+
+    //The computer player that plays instead of the user, or null if the user is playing.
+    private AutoPlayer autoPlayer = null;
+
+    //Records the current game, so that it can be saved as a replay when it ends. Null while a replay is playing.
+    private ReplayRecorder recorder = null;
+    //The archive that replays are saved into.
+    final private static String REPLAY_ARCHIVE = "replays" + File.separator + "replays" + ReplayArchive.EXTENSION;
+
+    //The replay to play instead of a new game, or null to play a new game. User inputs are ignored during a replay.
+    private Replay replay = null;
+    //How fast the game runs, compared to normal. Used to play replays faster or slower.
+    private double speed = 1;
+
+    //The file that a game is saved into from the pause menu, as a snapshot (see GameEngine.toSnapshot()).
+    final private static Path SAVE_FILE = Paths.get("saved-game.tsav");
+
+    //The best scores, kept on disk in this folder. Null if the folder could not be used.
+    private HighScoreTable highScores = null;
+    final private static Path HIGH_SCORE_DIRECTORY = Paths.get("scores");
+
+    //The column that the mouse last moved to, which the Tetromino is moving towards. -1 if there is none.
+    private int mouseColumn = -1;
+
+    //The score and number of landed Tetrominoes, as of the last tick. Used to detect changes.
+    private int lastScore;
+    private long lastPiecesLanded;
+
+    //The positions of the current Tetromino`s blocks before the last tick, as x and y pairs. Used to detect when it
+    //moves, so that only the area around it is redrawn.
+    private int[] previousCells = new int[TetrominoShape.BLOCK_COUNT * 2];
 
     //The menu overlays for game over and pauseGame screens.
     private Overlay menuOverlay = null;
 
-    //Timer. Used to drop the Tetromino by one cell after a set amount of time.
-    private Timer dropTimer;
-    //How long to wait before dropping Tetromino again by one cell.
-    private int dropTime;
-    final private static int INITIAL_DROP_TIME = 500;
-
     //Whether or not to pause the game.
     private boolean pauseGame = false;
 
-    //The score.
-    private int score = 0;
-
     //Whether or not the right mouse button is being held down.
     private boolean rightButtonDown = false;
 
@@ -137,6 +193,13 @@ public class GamePanel extends JPanel implements ActionListener, MouseMotionList
         buttonManager = new ButtonManager();
         textBoxManager = new TextComponentManager();
 
+        //Load the best scores. The game can be played without them.
+        try {
+            highScores = new HighScoreTable(HIGH_SCORE_DIRECTORY);
+        } catch (IOException exception) {
+            System.err.println("Could not load the high scores: " + exception.getMessage());
+        }
+
         //Initially go to the main menu.
         goToMainMenu();
     }
@@ -155,13 +218,24 @@ public class GamePanel extends JPanel implements ActionListener, MouseMotionList
     	//Get the center of the screen.
     	int centerX = (int) (size.getWidth() / 2);
     	
-    	//Set up the buttons. They will be drawn horizontally center to the screen.
-    	but1 = new Button(centerX-(BUTTON_WIDTH/2), 300, BUTTON_WIDTH, BUTTON_HEIGHT, "Play",
-                PRIMARY_BUTTON_COLOUR, SECONDARY_BUTTON_COLOUR);
-    	but2 = new Button(centerX-(BUTTON_WIDTH/2), 450, BUTTON_WIDTH, BUTTON_HEIGHT, "How to Play",
+    	//Set up the buttons. They will be drawn horizontally center to the screen. If there is a saved game, a
+    	//'Continue' button goes on top, and the buttons are closer together to make room for it.
+    	int buttonY = 300;
+    	int buttonSpacing = 150;
+    	but4 = null;
+    	if (replay == null && Files.isRegularFile(SAVE_FILE) == true) {
+    		but4 = new Button(centerX-(BUTTON_WIDTH/2), 260, BUTTON_WIDTH, BUTTON_HEIGHT, "Continue",
+                    PRIMARY_BUTTON_COLOUR, SECONDARY_BUTTON_COLOUR);
+    		buttonManager.addComponent(but4);
+    		buttonY = 380;
+    		buttonSpacing = 120;
+    	}
+    	but1 = new Button(centerX-(BUTTON_WIDTH/2), buttonY, BUTTON_WIDTH, BUTTON_HEIGHT, "Play",
                 PRIMARY_BUTTON_COLOUR, SECONDARY_BUTTON_COLOUR);
-    	but3 = new Button(centerX-(BUTTON_WIDTH/2), 600, BUTTON_WIDTH, BUTTON_HEIGHT, "Controls",
+    	but2 = new Button(centerX-(BUTTON_WIDTH/2), buttonY + buttonSpacing, BUTTON_WIDTH, BUTTON_HEIGHT, "How to Play",
                 PRIMARY_BUTTON_COLOUR, SECONDARY_BUTTON_COLOUR);
+    	but3 = new Button(centerX-(BUTTON_WIDTH/2), buttonY + (buttonSpacing * 2), BUTTON_WIDTH, BUTTON_HEIGHT,
+                "Controls", PRIMARY_BUTTON_COLOUR, SECONDARY_BUTTON_COLOUR);
     	
     	//Add those buttons.
     	buttonManager.addComponent(but1);
@@ -257,8 +331,15 @@ public class GamePanel extends JPanel implements ActionListener, MouseMotionList
         buttonManager.prepareButtons(previousMouseEvent);
     	
     	//Create a game Grid.
-    	gameGrid = new Grid(BUTTON_WIDTH,0, 10,16);
+    	//A replay is played on a Grid of the size it was recorded on.
+    	if (replay != null) {
+    		gameGrid = new Grid(BUTTON_WIDTH,0, replay.getColumns(),replay.getRows());
+    	}
+    	else {
+    		gameGrid = new Grid(BUTTON_WIDTH,0, GAME_COLUMNS,GAME_ROWS);
+    	}
     	gameGrid.setDrawTerminalLine(true);
+    	gameGrid.setDrawGhostPiece(true);
     	//Grid to display upcoming Tetromino.
     	sideGrid = new Grid(50,200,4,4);
 
@@ -272,23 +353,68 @@ public class GamePanel extends JPanel implements ActionListener, MouseMotionList
         textBoxManager.addComponent(textBox1);
         textBoxManager.addComponent(textBox2);
 
-        //Create the Tetromino that is next in line.
-        nextTetromino = new Tetromino(sideGrid);
-        nextTetromino.generateNewPiece();
-
-        //Create the first Tetromino.
-        currentTetromino = new Tetromino(gameGrid);
-        currentTetromino.generateNewPiece();
+        //Start the game on the Grids. This creates the first Tetromino and the one that is next in line.
+        //Either play the replay again from the start, or choose a seed and record the game.
+        if (replay != null) {
+            engine = replay.createEngine(gameGrid, sideGrid);
+            recorder = null;
+        }
+        else {
+            long seed = new SplittableRandom().nextLong();
+            engine = new GameEngine(gameGrid, sideGrid, new BagPieceGenerator(seed));
+            recorder = new ReplayRecorder(seed, gameGrid.getColumns(), gameGrid.getRows());
+        }
 
         //Set initial variables.
-        dropTime = INITIAL_DROP_TIME;
-        setupDropTimer(dropTime);
-        score = 0;
+        inputQueue.clear();
+        mouseColumn = -1;
+        lastScore = 0;
+        lastPiecesLanded = 0;
         //Initially assume that the right mouse button is not pressed. This prevents Tetromino from rotating
         //unnecessarily.
         releaseRightMouseButton();
     }
 
+    /**
+     * Carry on the saved game. The save is deleted once it has been loaded, so that it can only be continued once. If
+     * it can not be loaded, a new game is started instead. Saved games are not recorded as replays, since the inputs
+     * from before the save are not kept.
+     */
+    private void continueSavedGame() {
+        goToGame();
+        try {
+            byte[] snapshot = Files.readAllBytes(SAVE_FILE);
+            engine = GameEngine.fromSnapshot(snapshot, gameGrid, sideGrid);
+            recorder = null;
+            Files.delete(SAVE_FILE);
+        } catch (IOException | IllegalArgumentException exception) {
+            System.err.println("Could not load the saved game: " + exception.getMessage());
+            goToGame();
+            return;
+        }
+        lastScore = engine.getScore();
+        lastPiecesLanded = engine.getPiecesLanded();
+        textBox2.setText("Score: " + lastScore);
+        repaint();
+    }
+
+    /**
+     * Save the game, so that it can be continued from the main menu. The snapshot is written to a temporary file
+     * first, and then moved over the old save, so that a crash while saving does not leave a broken save behind.
+     * @return True if the game was saved, false if not.
+     */
+    private boolean saveGame() {
+        Path temporary = SAVE_FILE.resolveSibling(SAVE_FILE.getFileName() + ".tmp");
+        try {
+            Files.write(temporary, engine.toSnapshot());
+            Files.move(temporary, SAVE_FILE, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException exception) {
+            System.err.println("Could not save the game: " + exception.getMessage());
+            return false;
+        }
+    }
+
     /**
      * Method that needs to be called whenever the game screen/state changes; for example, it must be called when the
      * program goes to the main menu.
@@ -296,6 +422,8 @@ public class GamePanel extends JPanel implements ActionListener, MouseMotionList
      */
     private void updateState(State newState) {
         state = newState;
+        //Everything on the screen changes.
+        repaint();
     }
 
     /**
@@ -322,11 +450,9 @@ public class GamePanel extends JPanel implements ActionListener, MouseMotionList
 
         //Update the state.
         updateState(State.GAME_OVER);
+        saveReplay();
     	//Pause the game.
         pauseGame();
-        //Stop the drop timer.
-        dropTimer.stop();
-        dropTimer = null;
         //Set up menu overlay.
     	menuOverlay = new Overlay(100,100,(int) size.getWidth() - 200,(int) size.getHeight() - 200,
                 "Game Over!", size);
@@ -340,34 +466,80 @@ public class GamePanel extends JPanel implements ActionListener, MouseMotionList
     	menuOverlay.addButton(but3);
 
     	//Create explanatory text box.
-    	TextBox textBox = new TextBox(150,250,800,200,"Game Over! Your final score is " + score + "!");
+    	TextBox textBox = new TextBox(150,250,800,200,"Game Over! Your final score is " + engine.getScore() + "! " +
+                recordHighScore());
     	textBox.setTopPadding(30);
     	textBox.setTextAlignment(TextComponent.TEXT_ALIGN_CENTER);
     	menuOverlay.addTextBox(textBox);
     }
 
+    /**
+     * Add the recording of the game that just ended to the replay archive. Does nothing while a replay is playing.
+     */
+    private void saveReplay() {
+        if (recorder == null) {
+            return;
+        }
+        recorder.finish(engine.getTicks(), engine.getScore());
+        File file = new File(REPLAY_ARCHIVE);
+        File directory = file.getParentFile();
+        try {
+            if (directory.isDirectory() == false && directory.mkdirs() == false) {
+                throw new IOException("Could not create " + directory);
+            }
+            try (ReplayArchive archive = ReplayArchive.open(file.toPath(), false)) {
+                archive.append(recorder.toByteArray());
+            }
+        } catch (IOException exception) {
+            //The game can go on without the replay.
+            System.err.println("Could not save replay: " + exception.getMessage());
+        }
+        recorder = null;
+    }
+
+    /**
+     * Add the score of the game that just ended to the high scores. Replays are not added, since their scores were
+     * added when they were played, and neither are games played by the computer, which would push out the user`s
+     * scores.
+     * @return Text that tells the user how the score compares to the high scores.
+     */
+    private String recordHighScore() {
+        if (highScores == null || replay != null || autoPlayer != null) {
+            return "";
+        }
+        int rank;
+        try {
+            rank = highScores.add(engine.getScore());
+        } catch (IOException exception) {
+            System.err.println("Could not save the high score: " + exception.getMessage());
+            return "";
+        }
+        if (rank == 1) {
+            return "That is the best score so far!";
+        }
+        else if (rank != -1) {
+            return "That is number " + rank + " on the high score table. The best score is " +
+                    highScores.getBestScore() + ".";
+        }
+        return "The best score is " + highScores.getBestScore() + ".";
+    }
+
     /**
      * Pauses the game. Make all the buttons not inside of the menu overlay unclickable.
      */
     private void pauseGame() {
-        //Stop the dropTimer.
-        if (dropTimer != null) {
-            dropTimer.stop();
-        }
         pauseGame = true;
         buttonManager.setClickable(false);
+        repaint();
     }
 
     /**
      * Resumes the game. Makes the buttons clickable again.
      */
     private void resumeGame() {
-        //Resume the timer.
-        if (dropTimer != null) {
-            dropTimer.start();
-        }
         pauseGame = false;
         buttonManager.setClickable(true);
+        repaint();
     }
 
     /**
@@ -375,6 +547,7 @@ public class GamePanel extends JPanel implements ActionListener, MouseMotionList
      */
     private void removeOverlay() {
         menuOverlay = null;
+        repaint();
     }
 
     /**
@@ -385,36 +558,151 @@ public class GamePanel extends JPanel implements ActionListener, MouseMotionList
         //Set up menu overlay.
         menuOverlay = new Overlay(100,100,(int)size.getWidth()-200,(int)size.getHeight()-200,"Game Paused",size);
 
-        //Set up buttons for the pause menu.
-        but2 = new Button(150,500,BUTTON_WIDTH,BUTTON_HEIGHT,"Resume",PRIMARY_BUTTON_COLOUR,SECONDARY_BUTTON_COLOUR);
+        //Set up buttons for the pause menu. A replay can not be saved.
+        but2 = new Button(150,450,BUTTON_WIDTH,BUTTON_HEIGHT,"Resume",PRIMARY_BUTTON_COLOUR,SECONDARY_BUTTON_COLOUR);
         menuOverlay.addButton(but2);
-        but3 = new Button(650,500,BUTTON_WIDTH,BUTTON_HEIGHT,"Restart",PRIMARY_BUTTON_COLOUR,SECONDARY_BUTTON_COLOUR);
+        but3 = new Button(650,450,BUTTON_WIDTH,BUTTON_HEIGHT,"Restart",PRIMARY_BUTTON_COLOUR,SECONDARY_BUTTON_COLOUR);
         menuOverlay.addButton(but3);
+        but4 = null;
+        if (replay == null) {
+            but4 = new Button(400,570,BUTTON_WIDTH,BUTTON_HEIGHT,"Save and Quit",PRIMARY_BUTTON_COLOUR,
+                    SECONDARY_BUTTON_COLOUR);
+            menuOverlay.addButton(but4);
+        }
 
         //Explanatory text box.
-        TextBox textBox = new TextBox(150,250,800,200,"The game is paused. Resume the game, or restart it.");
+        TextBox textBox = new TextBox(150,220,800,200,"The game is paused. Resume the game, restart it, or save it to " +
+                "continue later.");
         textBox.setTopPadding(30);
         textBox.setTextAlignment(TextComponent.TEXT_ALIGN_CENTER);
         menuOverlay.addTextBox(textBox);
     }
 
     /**
-     * Updates the game. Calls actions on the current Tetromino in order to tell it to  drop, if necessary.
+     * Updates the game. Moves the game engine forward by one tick, giving it the next input from the user, and then
+     * updates the screen to match the engine.
      */
     private void update() {
-        if (rightButtonDown == true && getState() == State.GAME_ON) {
-            dropTetromino();
+
+        //Only update when the game is operating and not paused.
+        if (getState() != State.GAME_ON || pauseGame == true) {
+            return;
+        }
+
+        Tetromino tetromino = engine.getCurrentTetromino();
+        int originX = tetromino.getOriginX();
+
+        //Remember where the Tetromino was.
+        Rectangle previousBounds = gameGrid.getBlockBounds(tetromino.getBlocks());
+        Rectangle previousGhostBounds = gameGrid.getGhostBounds();
+        for (int i = 0; i < TetrominoShape.BLOCK_COUNT; i ++) {
+            previousCells[i * 2] = tetromino.getBlocks().get(i).getX();
+            previousCells[(i * 2) + 1] = tetromino.getBlocks().get(i).getY();
+        }
+
+        GameEngine.Input input = getNextInput();
+        if (recorder != null) {
+            recorder.record(engine.getTicks(), input);
+        }
+        engine.step(input);
+
+        //The Tetromino moved: redraw where it was, and where it is now.
+        if (engine.getCurrentTetromino() == tetromino) {
+            for (int i = 0; i < TetrominoShape.BLOCK_COUNT; i ++) {
+                if (previousCells[i * 2] != tetromino.getBlocks().get(i).getX()
+                        || previousCells[(i * 2) + 1] != tetromino.getBlocks().get(i).getY()) {
+                    repaint(previousBounds.union(gameGrid.getBlockBounds(tetromino.getBlocks())));
+                    //The ghost piece moves with it.
+                    repaintArea(previousGhostBounds);
+                    repaintArea(gameGrid.getGhostBounds());
+                    break;
+                }
+            }
+        }
+
+        //The Tetromino could not move any closer to the mouse, so stop trying.
+        if ((input == GameEngine.Input.LEFT || input == GameEngine.Input.RIGHT) && mouseColumn != -1
+                && tetromino.getOriginX() == originX) {
+            mouseColumn = -1;
+        }
+
+        //The score changed.
+        if (engine.getScore() != lastScore) {
+            lastScore = engine.getScore();
+            textBox2.setText("Score: " + lastScore);
+            repaint(textBox2.getBounds());
+        }
+
+        //A Tetromino landed. Rows may have been deleted, and there is a new next Tetromino, so redraw both Grids.
+        if (engine.getPiecesLanded() != lastPiecesLanded) {
+            lastPiecesLanded = engine.getPiecesLanded();
+            repaint(gameGrid.getBounds());
+            repaint(sideGrid.getBounds());
+            //Release the right mouse button so that the next Tetromino does not automatically start dropping.
+            releaseRightMouseButton();
+            //The next Tetromino should not chase the mouse until the mouse moves again.
+            mouseColumn = -1;
+        }
+
+        if (engine.isGameOver() == true) {
+            gameOver();
         }
     }
 
+    /**
+     * Decides what input to give to the engine in this tick. Keys and clicks come first, in the order that they
+     * happened. Otherwise, move the Tetromino one column towards the mouse, or hard drop it if the right mouse button
+     * is held down.
+     * @return The input.
+     */
+    private GameEngine.Input getNextInput() {
+
+        //A replay is playing. Only the recorded inputs count.
+        if (replay != null) {
+            inputQueue.clear();
+            mouseColumn = -1;
+            return replay.getInput(engine.getTicks());
+        }
+
+        if (inputQueue.isEmpty() == false) {
+            return inputQueue.poll();
+        }
+
+        //The computer is playing.
+        if (autoPlayer != null) {
+            return autoPlayer.getNextInput(engine);
+        }
+
+        //Move towards the mouse.
+        if (mouseColumn != -1) {
+            int originX = engine.getCurrentTetromino().getOriginX();
+            if (mouseColumn < originX) {
+                return GameEngine.Input.LEFT;
+            }
+            else if (mouseColumn > originX) {
+                return GameEngine.Input.RIGHT;
+            }
+            //The Tetromino has reached the mouse.
+            mouseColumn = -1;
+        }
+
+        if (rightButtonDown == true) {
+            return GameEngine.Input.HARD_DROP;
+        }
+        return GameEngine.Input.NONE;
+    }
+
     /**
      * Overridden paint method. Draws on the window.
      */
     @Override
-    public void paint(Graphics g) {
+    public synchronized void paint(Graphics g) {
 
-        //Check if the draw/animation has been started. This is the timer that counts when to redraw frames.
-        if (animationTimer == null) {
+        framesDrawn++;
+
+        //Check if the draw/animation has been started. This is the timer that counts when to redraw frames. Not
+        //needed when a RenderLoop is drawing the panel.
+        if (animationTimer == null && activeRendering == false) {
             //If not, set it up and start it.
             setupAnimationTimer();
         }
@@ -495,6 +783,14 @@ public class GamePanel extends JPanel implements ActionListener, MouseMotionList
         sideGrid.draw(g);
     }
 
+    /**
+     * Get the number of frames to try to draw each second.
+     * @return The target FPS.
+     */
+    public static double getTargetFPS() {
+        return TARGET_FPS;
+    }
+
     /**
      * Sets up the animationTimer.
      */
@@ -514,119 +810,93 @@ public class GamePanel extends JPanel implements ActionListener, MouseMotionList
     }
 
     /**
-     * Set up the drop timer; the amount of time before each drop.
-     * @param dropTime The amount of time in milliseconds.
+     * Let the computer play the game. Keys and clicks still work, and take priority over the computer`s inputs.
+     * @param autoPlayer The computer player, or null to let the user play.
      */
-    private void setupDropTimer(int dropTime) {
-        if (dropTimer != null) {
-            dropTimer.stop();
-        }
-        dropTimer = new Timer(dropTime,this);
-        dropTimer.start();
+    public synchronized void setAutoPlayer(AutoPlayer autoPlayer) {
+        this.autoPlayer = autoPlayer;
     }
 
-    @Override
-    public void actionPerformed(ActionEvent e) {
-
-        if (e.getSource() == animationTimer) {
-            //Time to update and repaint the panel.
-            framesDrawn++;
-            update();
-            repaint();
-        }
-        else if (e.getSource() == dropTimer) {
-            //Only drop when the game is not paused.
-            if (pauseGame == false) {
-                dropTetromino();
-            }
-        }
+    /**
+     * Play a replay instead of new games, at the specified speed. Keys and clicks do not affect the replay.
+     * @param replay The replay, or null to play new games.
+     * @param speed How fast to play, compared to normal. For example, 2 plays twice as fast.
+     */
+    public synchronized void setReplay(Replay replay, double speed) {
+        this.replay = replay;
+        this.speed = speed;
     }
 
     /**
-     * Drop the Tetromino by one cell/row. Detects when the Tetromino has hit the ground, at which point it is out of
-     * play. Also detects when Tetromino lands on the Terminal line of the game Grid, at which point the game is over.
+     * Switch to active rendering: a RenderLoop thread will update and draw the panel from now on, instead of the
+     * animation timer and Swing.
+     * @param frame The window that contains this panel. Must already be visible.
      */
-    private void dropTetromino() {
-
-        if (currentTetromino != null) {
-            boolean canDropDown = currentTetromino.moveDown();
-
-            //Land the Tetromino : it can no longer drop.
-            if (canDropDown == false) {
-                //Release the right mouse button so that the next Tetromino does not automatically start dropping.
-                releaseRightMouseButton();
+    public synchronized void startActiveRendering(JFrame frame) {
+        if (activeRendering == true) {
+            return;
+        }
+        activeRendering = true;
 
-                //Release all of the blocks that were formerly a part of the piece.
-                currentTetromino.releaseBlocks();
-                //Use the next Tetromino.
-                currentTetromino = nextTetromino;
-                movePieceToGameGrid(currentTetromino);
-
-                //Remove all blocks from the side Grid panel.
-                sideGrid.removeAllBlocks();
-                //Generate a new piece that will be next in line.
-                nextTetromino = new Tetromino(sideGrid);
-                nextTetromino.generateNewPiece();
-                
-                //Check to see if any line was formed. If yes, add to score and delete row.
-                checkLinesFormed();
-
-                //Check to see if any block landed in the terminal line. If yes, the game is over.
-                boolean blockTerminated = gameGrid.blockOnTerminalLine();
-                if (blockTerminated == true) {
-                	gameOver();
-                }
-            }
+        //The timer is no longer needed.
+        if (animationTimer != null) {
+            animationTimer.stop();
         }
-    }
 
+        renderLoop = new RenderLoop(frame, this);
+        renderLoop.start();
+    }
 
     /**
-     * Move the upcoming Tetromino to the game Grid.
-     * @param tetromino The Tetromino to move.
+     * Move the game forward by as many ticks as fit into the time that has passed since the last call. Leftover time
+     * is kept for the next call, so that the game runs at exactly TICKS_PER_SECOND over time, no matter how often this
+     * is called.
+     * @param currentTime The current time, in nanoseconds, from System.nanoTime().
      */
-    private void movePieceToGameGrid(Tetromino tetromino) {
+    public synchronized void advance(long currentTime) {
 
-        //Change the Grid from the sideGrid to the gameGrid.
-        tetromino.changeGrid(gameGrid);
+        //First call: nothing has passed yet.
+        if (previousUpdateTime == -1) {
+            previousUpdateTime = currentTime;
+        }
+        unusedTickTime += (long) ((currentTime - previousUpdateTime) * GameEngine.TICKS_PER_SECOND * speed);
+        previousUpdateTime = currentTime;
 
-        //Move up so that it initially starts outside and above of the game Grid.
-        for (int i = 0; i < tetromino.getSIZE(); i ++) {
-            tetromino.moveUp();
+        //Skip time that can not be caught up on, such as when the computer was asleep.
+        long maxTickTime = (long) (1000000000L * MAX_TICKS_PER_UPDATE * Math.max(speed, 1));
+        if (unusedTickTime > maxTickTime) {
+            unusedTickTime = maxTickTime;
         }
 
-        //Center the Tetromino, as much as possible.
-        int gridWidth = tetromino.getGrid().getColumns();
-        int offsetX = (gridWidth-(4))/2;
-        for (int i = 0; i < offsetX; i ++) {
-            tetromino.moveRight();
+        while (unusedTickTime >= 1000000000L) {
+            unusedTickTime -= 1000000000L;
+            update();
         }
     }
 
     /**
-     * Checks to see if any horizontal line of blocks was formed on the Grid. If a line was formed, delete all of the
-     * blocks in that row, increase the score, and drop all of the blocks that are above that row by one cell.
+     * Repaint an area of the panel. Ignored when a RenderLoop is drawing the panel, since it redraws everything in
+     * every frame anyway. All of the other repaint methods call this one.
      */
-    private void checkLinesFormed() {
-    	int rows = gameGrid.getRows();
-    	//Start at 1, because 0 is the terminal line.
-    	for (int i = 1; i < rows; i ++) {
-    		boolean lineFormed = gameGrid.horizontalLineFormed(i);
-    		if (lineFormed == true) {
-    		    //Delete row and drop down all of the blocks that are above it.
-    			gameGrid.deleteRow(i);
-    			gameGrid.dropBlocks(i);
-    			increaseScore();
-    		}
-    	}
+    @Override
+    public void repaint(long tm, int x, int y, int width, int height) {
+        if (activeRendering == false) {
+            super.repaint(tm, x, y, width, height);
+        }
     }
-    
-    /**
-     * Add to the score.
-     */
-    private void increaseScore() {
-    	score ++;
-    	textBox2.setText("Score: " + score);
+
+    @Override
+    public synchronized void actionPerformed(ActionEvent e) {
+
+        if (e.getSource() == animationTimer) {
+            //Time to update the panel. Only the parts of the panel that changed are repainted.
+            advance(System.nanoTime());
+
+            //The debug information changes every frame.
+            if (debug == true) {
+                repaint();
+            }
+        }
     }
 
     /**
@@ -645,6 +915,10 @@ public class GamePanel extends JPanel implements ActionListener, MouseMotionList
                 //Start the game.
                 goToGame();
             }
+            //User pressed 'Continue'.
+            else if (but4 != null && but4 == clickedButton) {
+                continueSavedGame();
+            }
             //User clicked 'How to Play'.
             else if (but2 == clickedButton) {
                 goToInstructions();
@@ -708,6 +982,12 @@ public class GamePanel extends JPanel implements ActionListener, MouseMotionList
                     //Restart the game.
                     goToGame();
                 }
+                //User pressed 'Save and Quit'.
+                else if (but4 != null && but4 == overlayButton && saveGame() == true) {
+                    resumeGame();
+                    removeOverlay();
+                    goToMainMenu();
+                }
             }
         }
         //Game is over.
@@ -735,6 +1015,28 @@ public class GamePanel extends JPanel implements ActionListener, MouseMotionList
         }
     }
 
+    /**
+     * Start moving the Tetromino horizontally to the mouse, one column per tick. Only do so if the mouse is within
+     * the Grid.
+     * @param e The mouse event.
+     */
+    private void moveToMouse(MouseEvent e) {
+        int column = gameGrid.getMouseColumn(e);
+        if (column != -1) {
+            mouseColumn = column;
+        }
+    }
+
+    /**
+     * Repaint an area of the panel.
+     * @param area The area to repaint. If null, nothing is repainted.
+     */
+    private void repaintArea(Rectangle area) {
+        if (area != null) {
+            repaint(area);
+        }
+    }
+
     /**
      * 'Release' the right mouse button. It will no longer be considered to be held down. This method must be called
      * when user drags mouse outside of the game Grid, game starts, etc.
@@ -746,7 +1048,7 @@ public class GamePanel extends JPanel implements ActionListener, MouseMotionList
     /*  Events that are used. */
 
     @Override
-    public void mousePressed(MouseEvent e) {
+    public synchronized void mousePressed(MouseEvent e) {
 
         //Game is operating.
         if (getState() == State.GAME_ON) {
@@ -761,7 +1063,7 @@ public class GamePanel extends JPanel implements ActionListener, MouseMotionList
     }
 
     @Override
-    public void mouseReleased(MouseEvent e) {
+    public synchronized void mouseReleased(MouseEvent e) {
 
         //The mouse has just been released; check to see what button was clicked.
         checkButtonsClicked(e);
@@ -780,14 +1082,14 @@ public class GamePanel extends JPanel implements ActionListener, MouseMotionList
     }
 
     @Override
-    public void mouseMoved(MouseEvent e) {
+    public synchronized void mouseMoved(MouseEvent e) {
 
     	//Update the state of the buttons depending on if the mouse is hovering over them.
-    	buttonManager.updateButtonStates(e);
+    	repaintArea(buttonManager.updateButtonStates(e));
 
     	//Send to the overlay, if it exists.
         if (menuOverlay != null) {
-            menuOverlay.updateButtonStates(e);
+            repaintArea(menuOverlay.updateButtonStates(e));
         }
 
         //Store the mouse event.
@@ -796,7 +1098,7 @@ public class GamePanel extends JPanel implements ActionListener, MouseMotionList
         //User input with game through the mouse.
         if (getState() == State.GAME_ON) {
             if (gameGrid.isMouseInsideGrid(e) == true) {
-                currentTetromino.moveToMouse(e);
+                moveToMouse(e);
             }
             //Mouse is outside of the game Grid: release the button to prevent further rotation.
             else {
@@ -806,14 +1108,14 @@ public class GamePanel extends JPanel implements ActionListener, MouseMotionList
     }
 
     @Override
-    public void mouseDragged(MouseEvent e) {
+    public synchronized void mouseDragged(MouseEvent e) {
         //Interesting: when user holds down mouse while moving it, it is a mouseDragged event.
         //Update the state of the buttons depending on if the mouse is hovering over them.
-        buttonManager.updateButtonStates(e);
+        repaintArea(buttonManager.updateButtonStates(e));
 
         //Send to the overlay, if it exists.
         if (menuOverlay != null) {
-            menuOverlay.updateButtonStates(e);
+            repaintArea(menuOverlay.updateButtonStates(e));
         }
 
         //Store the mouse event.
@@ -824,7 +1126,7 @@ public class GamePanel extends JPanel implements ActionListener, MouseMotionList
             //Mouse is inside the game Grid.
             if (gameGrid.isMouseInsideGrid(e) == true) {
                 //Move Tetromino to mouse.
-                currentTetromino.moveToMouse(e);
+                moveToMouse(e);
 
                 //The right mouse button is being held down.
                 if (e.getModifiers() == InputEvent.BUTTON3_MASK) {
@@ -839,7 +1141,7 @@ public class GamePanel extends JPanel implements ActionListener, MouseMotionList
     }
 
     @Override
-    public void mouseClicked(MouseEvent e) {
+    public synchronized void mouseClicked(MouseEvent e) {
 
         //User input with game through the mouse.
         if (getState() == State.GAME_ON) {
@@ -848,30 +1150,31 @@ public class GamePanel extends JPanel implements ActionListener, MouseMotionList
                 //Left mouse button is being clicked.
                 if (e.getModifiers() == InputEvent.BUTTON1_MASK) {
                     //Rotate Tetromino.
-                    currentTetromino.rotate();
+                    inputQueue.add(GameEngine.Input.ROTATE);
                     //Rotation might have moved origin of the Tetromino. Move it back to mouse location.
-                    currentTetromino.moveToMouse(e);
+                    moveToMouse(e);
                 }
             }
         }
     }
 
     @Override
-	public void keyPressed(KeyEvent e) {
+	public synchronized void keyPressed(KeyEvent e) {
         if (getState() == State.GAME_ON) {
             //Only move Tetromino when the game is not paused.
             if (pauseGame == false) {
                 if (e.getKeyCode() == KeyEvent.VK_LEFT) {
-                    currentTetromino.moveLeft();
+                    inputQueue.add(GameEngine.Input.LEFT);
+                    //The keyboard takes over from the mouse.
+                    mouseColumn = -1;
                 } else if (e.getKeyCode() == KeyEvent.VK_RIGHT) {
-                    currentTetromino.moveRight();
+                    inputQueue.add(GameEngine.Input.RIGHT);
+                    mouseColumn = -1;
                 } else if (e.getKeyCode() == KeyEvent.VK_DOWN) {
-                    dropTetromino();
+                    inputQueue.add(GameEngine.Input.HARD_DROP);
                 } else if (e.getKeyCode() == KeyEvent.VK_UP) {
-                    currentTetromino.rotate();
+                    inputQueue.add(GameEngine.Input.ROTATE);
                 }
-                //Make sure nothing is out of bounds.
-                currentTetromino.stayWithinBounds();
             }
         }
 	}
@@ -1,10 +1,15 @@
 import java.awt.*;
 import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 
 /**
  * This class represents a Grid in the game window. It is responsible for drawing and keeping track of all
  * the blocks on the Grid.
+ *
+ * Which cells are occupied by stationary blocks is tracked by a Board, which stores each row as a bitmask. All of the
+ * checks on the Grid use the Board. The list of blocks is only used to draw the Grid, and to hold the blocks of any
+ * Tetromino that is on the Grid.
  */
 public class Grid {
 
@@ -16,6 +21,9 @@ public class Grid {
 
     //All of the blocks in this Grid.
     private ArrayList<Block> blocks = new ArrayList<>(0);
+
+    //Keeps track of which cells are occupied by stationary blocks.
+    private Board board;
     
     //The colours to use in drawing.
     final static private Color GRID_BACKGROUND_COLOUR = new Color(0, 70, 100);
@@ -34,6 +42,14 @@ public class Grid {
     //The size of each cell.
     private int cellSize;
 
+    //The Tetromino to draw a ghost for, showing where it will land, and whether or not to draw it.
+    private Tetromino ghostPiece = null;
+    private boolean drawGhostPiece = false;
+
+    //The background, lines and outline of the Grid, drawn once so that they do not need to be drawn every frame.
+    //Set to null whenever it needs to be drawn again.
+    private BufferedImage background = null;
+
     /**
      * Constructor. Takes in positions and dimensions as parameters.
      * @param x The left coordinate of the Grid.
@@ -65,35 +81,57 @@ public class Grid {
     }*/
 
     /**
-     * Draw the Grid.
+     * Draw the Grid. Only the parts of the Grid that are inside of the graphics object`s clip are drawn.
      */
     public void draw(Graphics g) {
-        drawGrid(g);
-        drawBlocks(g);
+        //Skip the background if none of it needs to be redrawn.
+        Rectangle clip = g.getClipBounds();
+        if (clip == null || clip.intersects(getBounds())) {
+            drawGrid(g);
+        }
+        drawGhostPiece(g, clip);
+        drawBlocks(g, clip);
     }
 
     /**
-     * Draw the lines of the Grid.
+     * Draw the lines of the Grid. They are only drawn onto an image the first time, and after that the image is drawn.
      * @param g The graphics object.
      */
     private void drawGrid(Graphics g) {
 
+        //Draw the image, if it is needed.
+        if (background == null) {
+            //The last lines are drawn just outside of the Grid, so leave room for them.
+            Dimension size = getGridDimensions();
+            background = new BufferedImage(size.width + 1, size.height + 1, BufferedImage.TYPE_INT_ARGB);
+            Graphics backgroundGraphics = background.createGraphics();
+            drawGrid(backgroundGraphics, 0, 0);
+            backgroundGraphics.dispose();
+        }
+
+        g.drawImage(background, x, y, null);
+    }
+
+    /**
+     * Draw the lines of the Grid.
+     * @param g The graphics object.
+     * @param offsetX The left edge of the Grid.
+     * @param offsetY The top edge of the Grid.
+     */
+    private void drawGrid(Graphics g, int offsetX, int offsetY) {
+
         //Obtain dimensions of the Grid.
         Dimension size = getGridDimensions();
 
         //Draw the background.
     	g.setColor(GRID_BACKGROUND_COLOUR);
-    	g.fillRect(x, y, size.width, size.height);
+    	g.fillRect(offsetX, offsetY, size.width, size.height);
 
     	//Draw the terminal line.
         if (drawTerminalLine == true) {
             g.setColor(TERMINAL_LINE_COLOUR);
-            g.fillRect(x, y, size.width, getCellSize());
+            g.fillRect(offsetX, offsetY, size.width, getCellSize());
         }
-
-        //Offset is basically the top left position of this Grid within the window.
-    	int offsetX = this.x;
-    	int offsetY = this.y;
     	
     	g.setColor(GRID_LINES_COLOUR);
     	
@@ -122,20 +160,185 @@ public class Grid {
     }
 
     /**
-     * Draw all of the game blocks that are on the Grid.
+     * Draw all of the game blocks that are on the Grid, except those outside of the clip.
      * @param g The graphics object used to draw.
+     * @param clip The area that needs to be drawn, or null if everything needs to be drawn.
      */
-    private void drawBlocks(Graphics g) {
+    private void drawBlocks(Graphics g, Rectangle clip) {
     	for (Block block : blocks) {
-    	    block.draw(g,x,y);
+    	    if (clip == null || clip.intersects(x + (block.getX() * getCellSize()),
+                    y + (block.getY() * getCellSize()), getCellSize(), getCellSize())) {
+                block.draw(g, x, y);
+            }
+        }
+    }
+
+    /**
+     * Draw the ghost piece: translucent blocks where the Tetromino will land. Drawn before the blocks, so that the
+     * Tetromino covers it when it is about to land. The landing position is kept by the Tetromino, so drawing does not
+     * need to search the Grid.
+     * @param g The graphics object used to draw.
+     * @param clip The area that needs to be drawn, or null if everything needs to be drawn.
+     */
+    private void drawGhostPiece(Graphics g, Rectangle clip) {
+        if (drawGhostPiece == false || ghostPiece == null || ghostPiece.getGrid() != this) {
+            return;
+        }
+        int distance = ghostPiece.getGhostDistance();
+        //The Tetromino is already where it will land.
+        if (distance == 0) {
+            return;
+        }
+        for (Block block : ghostPiece.getBlocks()) {
+            int ghostY = block.getY() + distance;
+            //Do not draw above the Grid.
+            if (ghostY < 0) {
+                continue;
+            }
+            if (clip == null || clip.intersects(x + (block.getX() * getCellSize()), y + (ghostY * getCellSize()),
+                    getCellSize(), getCellSize())) {
+                block.drawGhost(g, x, y, distance);
+            }
         }
     }
 
+    /**
+     * Get the area of the window covered by the ghost piece.
+     * @return The area, in pixels, or null if there is no ghost piece.
+     */
+    public Rectangle getGhostBounds() {
+        if (drawGhostPiece == false || ghostPiece == null || ghostPiece.getGrid() != this) {
+            return null;
+        }
+        Rectangle bounds = getBlockBounds(ghostPiece.getBlocks());
+        bounds.translate(0, ghostPiece.getGhostDistance() * getCellSize());
+        return bounds;
+    }
+
+    /**
+     * Get the area of the window covered by the cells of the blocks.
+     * @param blocks The blocks. Must not be empty.
+     * @return The area, in pixels.
+     */
+    public Rectangle getBlockBounds(ArrayList<Block> blocks) {
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+        for (Block block : blocks) {
+            minX = Math.min(minX, block.getX());
+            minY = Math.min(minY, block.getY());
+            maxX = Math.max(maxX, block.getX());
+            maxY = Math.max(maxY, block.getY());
+        }
+        return new Rectangle(x + (minX * getCellSize()), y + (minY * getCellSize()),
+                (maxX - minX + 1) * getCellSize(), (maxY - minY + 1) * getCellSize());
+    }
+
+    /**
+     * Get the area of the window covered by the Grid, including its outline.
+     * @return The area, in pixels.
+     */
+    public Rectangle getBounds() {
+        Dimension size = getGridDimensions();
+        return new Rectangle(x, y, size.width + 1, size.height + 1);
+    }
+
     /**
      * Remove all blocks from the Grid.
      */
     public void removeAllBlocks() {
         blocks.clear();
+        board.clear();
+    }
+
+    /**
+     * Release a block: it will no longer be a part of a Tetromino, and will become a stationary block on the Grid.
+     * The block must already be in the Grid.
+     * @param block The block to release.
+     */
+    public void releaseBlock(Block block) {
+        block.setPartOfGamePiece(false);
+        board.setCell(block.getX(), block.getY(), block.getColourCode());
+    }
+
+    /**
+     * Copies the colour code of every cell that is occupied by a stationary block into an array, one byte per cell (see
+     * Board.copyColours()). Cells that are empty, or only hold a part of a Tetromino, are 0.
+     * @param destination The array to copy into. Must have room for getBoard().getCellCount() bytes after the offset.
+     * @param offset Where to start copying to.
+     */
+    public void copyCells(byte[] destination, int offset) {
+        board.copyColours(destination, offset);
+    }
+
+    /**
+     * Replaces all of the blocks on the Grid with stationary blocks, from colour codes laid out the same way as by
+     * copyCells(). Any Tetromino on the Grid is removed as well.
+     * @param source The array to copy from. Must have getBoard().getCellCount() bytes after the offset.
+     * @param offset Where to start copying from.
+     */
+    public void setCells(byte[] source, int offset) {
+        blocks.clear();
+        board.setColours(source, offset);
+        for (int y = -Board.HIDDEN_ROWS; y < rows; y ++) {
+            //Skip empty rows without looking at every cell.
+            if (board.isRowEmpty(y) == true) {
+                continue;
+            }
+            for (int x = 0; x < columns; x ++) {
+                if (board.isOccupied(x, y) == true) {
+                    Block block = new Block(x, y, Block.getColour(board.getColourCode(x, y)));
+                    block.setPartOfGamePiece(false);
+                    blocks.add(block);
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates a copy of the stationary blocks on the Grid, as a Board. The copy shares its rows with the Grid until
+     * either one changes (see Board.copy()), so it is cheap enough to make one for every move that a search tries.
+     * Changing the copy does not change the Grid.
+     * @return The copy.
+     */
+    public Board copyBoard() {
+        return board.copy();
+    }
+
+    /**
+     * Checks to see if a cell is occupied by a stationary block. Blocks that are a part of a Tetromino are not
+     * counted. This only looks up the cell, so it takes the same time no matter how many blocks are on the Grid.
+     * @param x The column.
+     * @param y The row.
+     * @return True for yes, false for no. Cells outside of the Grid are never occupied.
+     */
+    public boolean isOccupied(int x, int y) {
+        return board.isOccupied(x, y);
+    }
+
+    /**
+     * Get the highest row of a column that is occupied by a stationary block.
+     * @param column The column.
+     * @return The row, or the number of rows if the column is empty.
+     */
+    public int getColumnTop(int column) {
+        return board.getColumnTop(column);
+    }
+
+    /**
+     * Get the height of the stationary blocks in a column, measured from the bottom of the Grid.
+     * @param column The column.
+     * @return The height, in cells.
+     */
+    public int getColumnHeight(int column) {
+        return board.getColumnHeight(column);
+    }
+
+    /**
+     * Get the number of holes in the Grid: empty cells that have a stationary block somewhere above them.
+     * @return The number of holes.
+     */
+    public int getHoleCount() {
+        return board.getHoleCount();
     }
 
     /**
@@ -145,26 +348,7 @@ public class Grid {
      * @return True for yes, false for no.
      */
     public boolean horizontalLineFormed(int row) {
-
-        int blockNum = 0;
-        for (Block block : blocks) {
-        	if (block.isPartOfGamePiece() == false) {
-                //Block is in this row.
-	            if (block.getY() == row) {
-	                blockNum ++;
-	            }
-        	}
-//            System.out.println(block.getY());
-        }
-//        System.out.println(blockNum);
-
-        //The row is full.
-        if (blockNum >= columns) {
-            return true;
-        }
-        else {
-            return false;
-        }
+        return board.isRowFull(row);
     }
 
     /**
@@ -187,23 +371,60 @@ public class Grid {
             }
         }
         blocks.removeAll(toRemove);
+        board.clearRow(row);
     }
     
+    /**
+     * Deletes every full row below the terminal line, and drops all of the blocks above each deleted row to fill the
+     * gap. Blocks that are a part of a Tetromino are not affected. This does the same thing as calling
+     * horizontalLineFormed(), deleteRow() and dropBlocks() on every row, but in a single pass over the blocks.
+     * @return The rows that were deleted, from top to bottom.
+     */
+    public int[] clearFullRows() {
+
+        //Start below the terminal line.
+        int[] clearedRows = board.clearFullRows(TERMINAL_LINE_ROW + 1);
+        if (clearedRows.length == 0) {
+            return clearedRows;
+        }
+
+        //Remove the blocks in the deleted rows, and drop the rest. Kept blocks are moved to the front of the list, so
+        //nothing needs to be removed from the middle of it.
+        int kept = 0;
+        for (int i = 0; i < blocks.size(); i ++) {
+            Block block = blocks.get(i);
+            if (block.isPartOfGamePiece() == false) {
+                //Each deleted row below the block makes it drop by one.
+                int drop = 0;
+                boolean deleted = false;
+                for (int row : clearedRows) {
+                    if (row == block.getY()) {
+                        deleted = true;
+                    }
+                    else if (row > block.getY()) {
+                        drop ++;
+                    }
+                }
+                if (deleted == true) {
+                    continue;
+                }
+                block.setY(block.getY() + drop);
+            }
+            blocks.set(kept, block);
+            kept ++;
+        }
+        blocks.subList(kept, blocks.size()).clear();
+
+        return clearedRows;
+    }
+
     /**
      * Checks to see if any block is on the terminal line. Does not count blocks that are considered to be a part of
      * a Tetromino.
      * @return True if yes, false for no.
      */
     public boolean blockOnTerminalLine() {
-
-        for (Block block : blocks) {
-    		if (block.isPartOfGamePiece() == false) {
-    			if (block.getY() == TERMINAL_LINE_ROW) {
-    				return true;
-    			}
-    		}
-    	}
-    	return false;
+        return board.isRowEmpty(TERMINAL_LINE_ROW) == false;
     }
 
     /**
@@ -225,6 +446,7 @@ public class Grid {
                 }
             }
         }
+        board.dropRowsAbove(row);
     }
 
     /**
@@ -243,6 +465,29 @@ public class Grid {
         return false;
     }
 
+    /**
+     * Calculates what column on the Grid the mouse currently occupies. Takes the Grid`s position in the window into
+     * account. If the mouse is out of bounds, -1 will be returned.
+     * @param e The mouse event.
+     * @return The column that the mouse is in. If mouse is out of bounds, -1 is returned.
+     */
+    public int getMouseColumn(MouseEvent e) {
+
+        //The mouse`s 'real' location on the Grid, after adjusting for the Grid`s position in the Window.
+        int realX = e.getX() - getX();
+
+        //Get the column of the Grid that the mouse occupies.
+        int column = (int) Math.floor(realX / getCellSize());
+
+        //Out of bounds.
+        if (column < 0 || column > getColumns() - 1) {
+            return -1;
+        }
+        else {
+            return column;
+        }
+    }
+
     /**
      * Gets all of the blocks in the Grid.
      * @return All the blocks in the form of an arrayList.
@@ -251,6 +496,14 @@ public class Grid {
         return blocks;
     }
 
+    /**
+     * Gets the Board that keeps track of the stationary blocks in the Grid.
+     * @return The Board.
+     */
+    public Board getBoard() {
+        return board;
+    }
+
     /**
      * Returns the height and the width of the Grid. Calculates it from multiplying the size of each cell by the number
      * of columns and rows.
@@ -268,6 +521,24 @@ public class Grid {
      */
     public void setDrawTerminalLine(boolean drawTerminalLine) {
         this.drawTerminalLine = drawTerminalLine;
+        //The background needs to be drawn again.
+        background = null;
+    }
+
+    /**
+     * Set the Tetromino to draw a ghost piece for.
+     * @param ghostPiece The Tetromino, or null for none.
+     */
+    public void setGhostPiece(Tetromino ghostPiece) {
+        this.ghostPiece = ghostPiece;
+    }
+
+    /**
+     * Set whether or not to draw the ghost piece, which shows where the Tetromino will land.
+     * @param drawGhostPiece True for yes, false for no.
+     */
+    public void setDrawGhostPiece(boolean drawGhostPiece) {
+        this.drawGhostPiece = drawGhostPiece;
     }
 
     /**
@@ -292,6 +563,8 @@ public class Grid {
      */
     public void setRows(int rows) {
         this.rows = rows;
+        createBoard();
+        background = null;
     }
 
     /**
@@ -300,6 +573,25 @@ public class Grid {
      */
     public void setColumns(int columns) {
         this.columns = columns;
+        createBoard();
+        background = null;
+    }
+
+    /**
+     * Creates a new Board that matches the size of the Grid, and copies all of the stationary blocks onto it. Needs to
+     * be called whenever the number of rows or columns changes.
+     */
+    private void createBoard() {
+        //The size of the Grid is not known yet.
+        if (rows < 1 || columns < 1) {
+            return;
+        }
+        board = new Board(columns, rows);
+        for (Block block : blocks) {
+            if (block.isPartOfGamePiece() == false) {
+                board.setCell(block.getX(), block.getY(), block.getColourCode());
+            }
+        }
     }
 
     /**
@@ -308,6 +600,7 @@ public class Grid {
      */
     public void setCellSize(int cellSize) {
         this.cellSize = cellSize;
+        background = null;
     }
 
     /**
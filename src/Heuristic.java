@@ -0,0 +1,148 @@
+/**
+ * This class scores how good a Board is for the player, so that the computer can choose where to place a Tetromino.
+ * Higher scores are better. The score adds up four features of the Board, each multiplied by a weight:
+ *
+ * Aggregate height: the sum of the heights of every column. Tall stacks are closer to losing.
+ * Lines: the number of rows cleared by the placement.
+ * Holes: empty cells with a block somewhere above them. They can not be filled until the rows above are cleared.
+ * Bumpiness: the sum of the differences in height between neighbouring columns. A flat surface fits more shapes.
+ *
+ * The Board is given as row bitmasks, in the same layout that Board uses, so that it is quick to copy and change
+ * while searching.
+ */
+public class Heuristic {
+
+    //The number of weights.
+    final public static int WEIGHT_COUNT = 4;
+
+    //The weights used when none are specified.
+    final public static Heuristic DEFAULT = new Heuristic(-0.510066, 0.760666, -0.35663, -0.184483);
+
+    //The weight of each feature.
+    final private double heightWeight;
+    final private double linesWeight;
+    final private double holesWeight;
+    final private double bumpinessWeight;
+
+    /**
+     * Constructor.
+     * @param heightWeight The weight of the aggregate height. Normally negative.
+     * @param linesWeight The weight of the number of lines cleared. Normally positive.
+     * @param holesWeight The weight of the number of holes. Normally negative.
+     * @param bumpinessWeight The weight of the bumpiness. Normally negative.
+     */
+    public Heuristic(double heightWeight, double linesWeight, double holesWeight, double bumpinessWeight) {
+        this.heightWeight = heightWeight;
+        this.linesWeight = linesWeight;
+        this.holesWeight = holesWeight;
+        this.bumpinessWeight = bumpinessWeight;
+    }
+
+    /**
+     * Constructor.
+     * @param weights The weights of the aggregate height, lines, holes and bumpiness, in that order.
+     */
+    public Heuristic(double[] weights) {
+        this(checkWeights(weights)[0], weights[1], weights[2], weights[3]);
+    }
+
+    /**
+     * Checks that there is the right number of weights, before the constructor reads them.
+     * @param weights The weights.
+     * @return The same weights.
+     */
+    private static double[] checkWeights(double[] weights) {
+        if (weights == null || weights.length != WEIGHT_COUNT) {
+            throw new IllegalArgumentException("A Heuristic needs exactly " + WEIGHT_COUNT + " weights.");
+        }
+        return weights;
+    }
+
+    /**
+     * Scores a Board.
+     * @param rowMasks The row bitmasks of the Board, including the hidden rows, from top to bottom (see Board).
+     * @param columns The number of columns.
+     * @param linesCleared The number of lines that were cleared to get to this Board.
+     * @param heights Space to store the height of each column while scoring. Must have at least 'columns' elements.
+     *                Passed in so that scoring does not create any objects, and so that each thread can have its own.
+     * @return The score.
+     */
+    public double evaluate(long[] rowMasks, int columns, int linesCleared, int[] heights) {
+        return evaluateBoard(rowMasks, columns, heights) + (linesWeight * linesCleared);
+    }
+
+    /**
+     * Scores a Board, without the lines cleared to get to it. This part of the score only depends on the Board, so it
+     * can be stored in a TranspositionTable.
+     * @param rowMasks The row bitmasks of the Board, including the hidden rows, from top to bottom (see Board).
+     * @param columns The number of columns.
+     * @param heights Space to store the height of each column while scoring. Must have at least 'columns' elements.
+     * @return The score.
+     */
+    public double evaluateBoard(long[] rowMasks, int columns, int[] heights) {
+
+        //Go from top to bottom. 'covered' has a bit set for every column that has had a block so far.
+        long covered = 0;
+        int holes = 0;
+        for (int i = 0; i < columns; i ++) {
+            heights[i] = 0;
+        }
+        for (int index = 0; index < rowMasks.length; index ++) {
+            long mask = rowMasks[index];
+
+            //Columns whose highest block is in this row.
+            long newlyCovered = mask & ~covered;
+            while (newlyCovered != 0) {
+                heights[Long.numberOfTrailingZeros(newlyCovered)] = rowMasks.length - index;
+                newlyCovered &= newlyCovered - 1;
+            }
+            covered |= mask;
+
+            //Empty cells under a block.
+            holes += Long.bitCount(covered & ~mask);
+        }
+
+        int aggregateHeight = 0;
+        int bumpiness = 0;
+        for (int x = 0; x < columns; x ++) {
+            aggregateHeight += heights[x];
+            if (x > 0) {
+                bumpiness += Math.abs(heights[x] - heights[x - 1]);
+            }
+        }
+
+        return (heightWeight * aggregateHeight) + (holesWeight * holes) + (bumpinessWeight * bumpiness);
+    }
+
+    /*  Getters */
+
+    public double getHeightWeight() {
+        return heightWeight;
+    }
+
+    public double getLinesWeight() {
+        return linesWeight;
+    }
+
+    public double getHolesWeight() {
+        return holesWeight;
+    }
+
+    public double getBumpinessWeight() {
+        return bumpinessWeight;
+    }
+
+    /**
+     * Get all of the weights.
+     * @return The weights of the aggregate height, lines, holes and bumpiness, in that order.
+     */
+    public double[] getWeights() {
+        return new double[] {heightWeight, linesWeight, holesWeight, bumpinessWeight};
+    }
+
+    @Override
+    public String toString() {
+        return "height " + heightWeight + ", lines " + linesWeight + ", holes " + holesWeight + ", bumpiness "
+                + bumpinessWeight;
+    }
+}
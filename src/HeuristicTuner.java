@@ -0,0 +1,405 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Finds good weights for the computer player`s Heuristic with a genetic algorithm. A population of weight vectors is
+ * scored by letting the computer player use each of them in the same set of seeded games, and counting the lines it
+ * clears. The best vectors are kept, and new ones are made by mixing pairs of good vectors and changing them slightly.
+ *
+ * The score of a game is the number of lines cleared, plus the lines cleared per Tetromino (at most 0.4). Good vectors
+ * last about a thousand Tetrominoes, so the piece limit is set well above that: if most games reached the limit, they
+ * would all clear about the same number of lines, and the vectors could not be told apart. The lines per Tetromino
+ * still tell apart vectors whose games all reach the limit, since a vector that clears lines sooner keeps the stack
+ * lower. The number of games that reached the limit is printed for every generation; if it is high, raise -maxPieces.
+ *
+ * The games are played with GameEngine, so the rules are exactly the ones of the real game: the 10 by 16 Grid with the
+ * terminal line, and Tetrominoes that rotate with the shifts of up to two columns in Tetromino, and that can be blocked
+ * on their way to a column. Every game of every vector is a separate task, spread over a pool with one thread per core.
+ *
+ * After each generation, the population is saved to a checkpoint file. If the file already exists when the tuner
+ * starts, it carries on from there.
+ *
+ * Arguments (all optional). Every N other than the seed must be above 0. If an argument is not valid, the usage is
+ * printed, and the program exits with status 1.
+ * -population N   The number of weight vectors in each generation. Default 32.
+ * -generations N  The generation to stop after. Default 20.
+ * -games N        The number of games to score each vector with. Default 16.
+ * -maxPieces N    End each game after this many Tetrominoes. Default 5000.
+ * -threads N      The number of threads. Default: one per core.
+ * -seed N         The seed for the games and the algorithm. Default 0.
+ * -checkpoint F   The checkpoint file. Default tuner-checkpoint.txt.
+ */
+public class HeuristicTuner {
+
+    //The size of the game Grid, the same as the game.
+    final private static int COLUMNS = 10;
+    final private static int ROWS = 16;
+
+    //The fraction of each generation that is kept as it is.
+    final private static double ELITE_FRACTION = 0.25;
+    //The number of vectors picked at random when choosing a parent. The best of them is the parent.
+    final private static int TOURNAMENT_SIZE = 4;
+    //The chance of changing a weight in a new vector, and by how much at most.
+    final private static double MUTATION_CHANCE = 0.3;
+    final private static double MUTATION_SIZE = 0.2;
+
+    //How to run the program, printed when the arguments are not valid.
+    final private static String USAGE = "Usage: java HeuristicTuner [-population N] [-generations N] [-games N] "
+            + "[-maxPieces N] [-threads N] [-seed N] [-checkpoint F]";
+
+    //Added to the seed for each game, to spread out the seeds of neighbouring games.
+    final private static long SEED_INCREMENT = 0x9E3779B97F4A7C15L;
+
+    //The settings.
+    private int populationSize = 32;
+    private int generations = 20;
+    private int games = 16;
+    private int maxPieces = 5000;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private long seed = 0;
+    private Path checkpoint = Paths.get("tuner-checkpoint.txt");
+
+    //The generation that is being scored, and its weight vectors.
+    private int generation = 0;
+    private ArrayList<double[]> population = new ArrayList<>();
+
+    //The number of games in the last generation that were stopped at the piece limit.
+    private int gamesCut = 0;
+
+    //The best vector found so far, and its score.
+    private double[] bestWeights = null;
+    private double bestFitness = Double.NEGATIVE_INFINITY;
+
+    public static void main(String[] args) throws Exception {
+        //No window is needed.
+        System.setProperty("java.awt.headless", "true");
+
+        HeuristicTuner tuner = new HeuristicTuner();
+        try {
+            tuner.parseArguments(args);
+        } catch (IllegalArgumentException exception) {
+            System.err.println(exception.getMessage());
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+        tuner.run();
+    }
+
+    /**
+     * Reads the settings from the command line arguments.
+     * @param args The arguments (see the description of the class).
+     * @throws IllegalArgumentException If an argument is unknown, is missing its value, or has a value that is not
+     *                                  valid.
+     */
+    private void parseArguments(String[] args) {
+        for (int i = 0; i < args.length; i ++) {
+            String arg = args[i];
+            if (arg.equals("-population")) {
+                populationSize = CommandLine.positiveValue(args, ++ i);
+            }
+            else if (arg.equals("-generations")) {
+                generations = CommandLine.positiveValue(args, ++ i);
+            }
+            else if (arg.equals("-games")) {
+                games = CommandLine.positiveValue(args, ++ i);
+            }
+            else if (arg.equals("-maxPieces")) {
+                maxPieces = CommandLine.positiveValue(args, ++ i);
+            }
+            else if (arg.equals("-threads")) {
+                threads = CommandLine.positiveValue(args, ++ i);
+            }
+            else if (arg.equals("-seed")) {
+                seed = CommandLine.longValue(args, ++ i);
+            }
+            else if (arg.equals("-checkpoint")) {
+                checkpoint = Paths.get(CommandLine.stringValue(args, ++ i));
+            }
+            else {
+                throw new IllegalArgumentException("Unknown argument: " + arg);
+            }
+        }
+    }
+
+    /**
+     * Runs the genetic algorithm until the last generation, starting from the checkpoint if there is one.
+     */
+    public void run() throws Exception {
+
+        if (Files.exists(checkpoint)) {
+            loadCheckpoint();
+            System.out.println("Resuming from " + checkpoint + " at generation " + generation);
+        }
+        else {
+            createPopulation();
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            while (generation < generations) {
+                double[] fitness = scorePopulation(pool);
+
+                //Sort the vectors from best to worst.
+                Integer[] order = new Integer[population.size()];
+                for (int i = 0; i < order.length; i ++) {
+                    order[i] = i;
+                }
+                Arrays.sort(order, Comparator.comparingDouble((Integer i) -> fitness[i]).reversed());
+
+                if (fitness[order[0]] > bestFitness) {
+                    bestFitness = fitness[order[0]];
+                    bestWeights = population.get(order[0]).clone();
+                }
+                System.out.printf("Generation %d: best %.2f, mean %.2f, %d of %d games stopped at the piece limit, " +
+                        "best so far %.2f with %s%n", generation, fitness[order[0]], mean(fitness), gamesCut,
+                        population.size() * games, bestFitness, Arrays.toString(bestWeights));
+
+                population = breed(order, fitness);
+                generation ++;
+                saveCheckpoint();
+            }
+        } finally {
+            //If a game failed, drop the games that have not started, so that they do not keep the program running.
+            pool.shutdownNow();
+        }
+
+        System.out.println("Best weights: " + Arrays.toString(bestWeights) + " (score " + bestFitness + ")");
+    }
+
+    /**
+     * Creates the first generation: the default weights, and random vectors.
+     */
+    private void createPopulation() {
+        SplittableRandom random = new SplittableRandom(seed);
+        population.clear();
+        population.add(Heuristic.DEFAULT.getWeights());
+        while (population.size() < populationSize) {
+            //Height, holes and bumpiness are bad and lines are good, so start with weights of those signs.
+            double[] weights = {-random.nextDouble(), random.nextDouble(), -random.nextDouble(), -random.nextDouble()};
+            population.add(normalize(weights));
+        }
+    }
+
+    /**
+     * Plays every game with every weight vector of the population.
+     * @param pool The threads to play on.
+     * @return The average score of the games of each vector.
+     */
+    private double[] scorePopulation(ExecutorService pool) throws Exception {
+
+        //One task per game per vector, so that a few slow vectors do not leave threads waiting.
+        ArrayList<Future<GameEngine>> results = new ArrayList<>();
+        for (double[] weights : population) {
+            Heuristic heuristic = new Heuristic(weights);
+            for (int game = 0; game < games; game ++) {
+                final long gameSeed = seed + (game * SEED_INCREMENT);
+                results.add(pool.submit(() -> playGame(heuristic, gameSeed)));
+            }
+        }
+
+        double[] fitness = new double[population.size()];
+        gamesCut = 0;
+        for (int i = 0; i < results.size(); i ++) {
+            GameEngine engine = results.get(i).get();
+            fitness[i / games] += engine.getScore();
+            if (engine.getPiecesLanded() > 0) {
+                fitness[i / games] += (double) engine.getScore() / engine.getPiecesLanded();
+            }
+            if (engine.isGameOver() == false) {
+                gamesCut ++;
+            }
+        }
+        for (int i = 0; i < fitness.length; i ++) {
+            fitness[i] /= games;
+        }
+        return fitness;
+    }
+
+    /**
+     * Plays one game with the computer player.
+     * @param heuristic The Heuristic for the computer player to use.
+     * @param gameSeed The seed of the Tetrominoes.
+     * @return The game, once it is over or has reached the piece limit.
+     */
+    private GameEngine playGame(Heuristic heuristic, long gameSeed) {
+        GameEngine engine = new GameEngine(COLUMNS, ROWS, new BagPieceGenerator(gameSeed));
+        AutoPlayer player = new AutoPlayer(heuristic);
+        while (engine.isGameOver() == false && engine.getPiecesLanded() < maxPieces) {
+            engine.step(player.getNextInput(engine));
+        }
+        return engine;
+    }
+
+    /**
+     * Makes the next generation. The best vectors are kept. The rest are children of two parents chosen by
+     * tournaments: a mix of the parents weighted by their scores, with some weights changed at random.
+     * @param order The vectors, from best to worst.
+     * @param fitness The score of each vector.
+     * @return The next generation.
+     */
+    private ArrayList<double[]> breed(Integer[] order, double[] fitness) {
+        //Seeded from the generation, so that a resumed run makes the same generations as an uninterrupted one.
+        SplittableRandom random = new SplittableRandom(seed + ((generation + 1) * SEED_INCREMENT));
+        ArrayList<double[]> next = new ArrayList<>();
+
+        int elite = Math.max(1, (int) (populationSize * ELITE_FRACTION));
+        for (int i = 0; i < elite && i < order.length; i ++) {
+            next.add(population.get(order[i]));
+        }
+
+        while (next.size() < populationSize) {
+            int first = tournament(random, fitness);
+            int second = tournament(random, fitness);
+
+            //Mix the parents, giving more weight to the better one.
+            double firstShare = 0.5;
+            double total = Math.max(0, fitness[first]) + Math.max(0, fitness[second]);
+            if (total > 0) {
+                firstShare = Math.max(0, fitness[first]) / total;
+            }
+            double[] child = new double[Heuristic.WEIGHT_COUNT];
+            for (int w = 0; w < child.length; w ++) {
+                child[w] = (population.get(first)[w] * firstShare) + (population.get(second)[w] * (1 - firstShare));
+                if (random.nextDouble() < MUTATION_CHANCE) {
+                    child[w] += (random.nextDouble() * 2 - 1) * MUTATION_SIZE;
+                }
+            }
+            next.add(normalize(child));
+        }
+        return next;
+    }
+
+    /**
+     * Picks a few vectors at random, and returns the best of them.
+     * @param random The random number generator.
+     * @param fitness The score of each vector.
+     * @return The index of the chosen vector.
+     */
+    private int tournament(SplittableRandom random, double[] fitness) {
+        int best = random.nextInt(fitness.length);
+        for (int i = 1; i < TOURNAMENT_SIZE; i ++) {
+            int contender = random.nextInt(fitness.length);
+            if (fitness[contender] > fitness[best]) {
+                best = contender;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Scales a weight vector to a length of 1. Only the ratios between the weights matter to the computer player, so
+     * this keeps the vectors comparable.
+     * @param weights The vector. Changed in place.
+     * @return The same vector.
+     */
+    private static double[] normalize(double[] weights) {
+        double length = 0;
+        for (double weight : weights) {
+            length += weight * weight;
+        }
+        length = Math.sqrt(length);
+        if (length > 0) {
+            for (int i = 0; i < weights.length; i ++) {
+                weights[i] /= length;
+            }
+        }
+        return weights;
+    }
+
+    private static double mean(double[] values) {
+        double total = 0;
+        for (double value : values) {
+            total += value;
+        }
+        return total / values.length;
+    }
+
+    /**
+     * Saves the generation that is about to be scored, and the best vector so far. The file is written under another
+     * name first and then renamed, so that stopping the tuner while saving does not ruin the old checkpoint.
+     */
+    private void saveCheckpoint() throws IOException {
+        Path temporary = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            writer.write("generation " + generation);
+            writer.newLine();
+            writer.write("seed " + seed);
+            writer.newLine();
+            if (bestWeights != null) {
+                writer.write("best " + bestFitness + " " + join(bestWeights));
+                writer.newLine();
+            }
+            for (double[] weights : population) {
+                writer.write("candidate " + join(weights));
+                writer.newLine();
+            }
+        }
+        Files.move(temporary, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Loads a checkpoint saved by saveCheckpoint().
+     */
+    private void loadCheckpoint() throws IOException {
+        population.clear();
+        try (BufferedReader reader = Files.newBufferedReader(checkpoint, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.trim().split("\\s+");
+                if (parts[0].equals("generation")) {
+                    generation = Integer.parseInt(parts[1]);
+                }
+                else if (parts[0].equals("seed")) {
+                    seed = Long.parseLong(parts[1]);
+                }
+                else if (parts[0].equals("best")) {
+                    bestFitness = Double.parseDouble(parts[1]);
+                    bestWeights = parseWeights(parts, 2);
+                }
+                else if (parts[0].equals("candidate")) {
+                    population.add(parseWeights(parts, 1));
+                }
+            }
+        }
+        if (population.isEmpty()) {
+            throw new IOException("The checkpoint " + checkpoint + " has no candidates.");
+        }
+        populationSize = population.size();
+    }
+
+    private static double[] parseWeights(String[] parts, int start) throws IOException {
+        if (parts.length - start != Heuristic.WEIGHT_COUNT) {
+            throw new IOException("Expected " + Heuristic.WEIGHT_COUNT + " weights: " + String.join(" ", parts));
+        }
+        double[] weights = new double[Heuristic.WEIGHT_COUNT];
+        for (int i = 0; i < weights.length; i ++) {
+            weights[i] = Double.parseDouble(parts[start + i]);
+        }
+        return weights;
+    }
+
+    private static String join(double[] weights) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < weights.length; i ++) {
+            if (i > 0) {
+                builder.append(' ');
+            }
+            //Double.toString keeps every digit, so the weights are loaded back exactly.
+            builder.append(Double.toString(weights[i]));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,344 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.zip.CRC32;
+
+/**
+ * Keeps the best scores on disk, so that they survive the program closing, or the computer losing power at any time.
+ *
+ * The table is two files in one folder:
+ * - The log: every score that is added is appended to it, and forced to disk, before add() returns. Each record is
+ *   RECORD_SIZE bytes: a sequence number (long), the score (int), the time in millis (long), and a CRC32 of those
+ *   (int). A record that was only partly written, or does not match its CRC, ends the log, and is cut off.
+ * - The snapshot: the best MAX_ENTRIES scores, sorted from best to worst, with the highest sequence number that they
+ *   include. After every COMPACTION_INTERVAL records, the log is merged into a new snapshot, which is written to a
+ *   temporary file and then moved over the old one, and the log is emptied once the move is forced to disk. Records
+ *   in the log that the snapshot already includes are skipped, in case the program stopped before the log was
+ *   emptied.
+ * Starting up reads the snapshot and the few records in the log, never the whole history of scores.
+ */
+public class HighScoreTable {
+
+    //The number of scores kept.
+    final public static int MAX_ENTRIES = 100;
+
+    //The number of records that the log can hold before it is merged into the snapshot.
+    final private static int COMPACTION_INTERVAL = 64;
+
+    //The size of each log record, and of each snapshot entry.
+    final private static int RECORD_SIZE = 24;
+    final private static int ENTRY_SIZE = 20;
+
+    //The first bytes of the snapshot, and the version of the format. After them come the highest sequence number
+    //(long), the number of entries (int), the entries, and a CRC32 of everything before it (int).
+    final private static byte[] SNAPSHOT_MAGIC = {'T', 'H', 'S', 'C'};
+    final private static int SNAPSHOT_VERSION = 1;
+    final private static int SNAPSHOT_HEADER_SIZE = 5 + 8 + 4;
+
+    //The folder, and the files in it.
+    private Path directory;
+    private Path logFile;
+    private Path snapshotFile;
+
+    //The best scores, from best to worst. Equal scores are in the order they were added.
+    private ArrayList<Entry> entries = new ArrayList<>();
+
+    //The sequence number of the next score, and the number of records in the log.
+    private long nextSequence = 1;
+    private int logCount = 0;
+
+    //The highest sequence number that the snapshot includes.
+    private long snapshotSequence = 0;
+
+    //Whether a failed write left part of a record in the log that could not be removed. The log must be read again
+    //(by opening the table again) before more records are added, or they would be cut off with the broken one.
+    private boolean logBroken = false;
+
+    /**
+     * Constructor. Opens the table in the specified folder, creating it if it does not exist yet. Anything left over
+     * from a write that did not finish is cut off the log.
+     * @param directory The folder.
+     * @throws IOException If the files can not be read, or the folder can not be created.
+     */
+    public HighScoreTable(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        this.directory = directory;
+        logFile = directory.resolve("scores.log");
+        snapshotFile = directory.resolve("scores.snapshot");
+
+        readSnapshot();
+        nextSequence = snapshotSequence + 1;
+        readLog();
+
+        if (logCount >= COMPACTION_INTERVAL) {
+            compact();
+        }
+    }
+
+    /**
+     * Add a score. It is on disk by the time this returns. If it can not be written, none of it is left in the log.
+     * @param score The score.
+     * @return The rank of the score, starting from 1 for the best, or -1 if it is not one of the best MAX_ENTRIES.
+     * @throws IOException If the score can not be written, or an earlier failed write could not be undone.
+     */
+    public synchronized int add(int score) throws IOException {
+        if (logBroken == true) {
+            throw new IOException("The high score log was damaged by a failed write. Open the table again.");
+        }
+        Entry entry = new Entry(nextSequence, score, System.currentTimeMillis());
+
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        record.putLong(entry.sequence);
+        record.putInt(entry.score);
+        record.putLong(entry.time);
+        record.putInt(checksum(record.array(), 0, RECORD_SIZE - 4));
+        record.flip();
+        boolean newLog = Files.exists(logFile) == false;
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND)) {
+            long start = channel.size();
+            try {
+                while (record.hasRemaining()) {
+                    channel.write(record);
+                }
+                channel.force(false);
+            } catch (IOException exception) {
+                //Remove whatever part of the record was written, so that the next record starts in the right place.
+                try {
+                    channel.truncate(start);
+                    channel.force(false);
+                } catch (IOException truncateException) {
+                    exception.addSuppressed(truncateException);
+                    logBroken = true;
+                }
+                throw exception;
+            }
+        }
+        //Forcing the file does not force its name into the folder, so a new log could still vanish.
+        if (newLog == true) {
+            forceDirectory();
+        }
+        nextSequence ++;
+        logCount ++;
+
+        int rank = insert(entry);
+        if (logCount >= COMPACTION_INTERVAL) {
+            compact();
+        }
+        return rank;
+    }
+
+    /**
+     * Merge the log into the snapshot, and empty the log. The table stays safe if the program stops at any point.
+     * @throws IOException If the files can not be written.
+     */
+    public synchronized void compact() throws IOException {
+        ByteBuffer snapshot = ByteBuffer.allocate(SNAPSHOT_HEADER_SIZE + (entries.size() * ENTRY_SIZE) + 4);
+        snapshot.put(SNAPSHOT_MAGIC);
+        snapshot.put((byte) SNAPSHOT_VERSION);
+        snapshot.putLong(nextSequence - 1);
+        snapshot.putInt(entries.size());
+        for (Entry entry : entries) {
+            snapshot.putLong(entry.sequence);
+            snapshot.putInt(entry.score);
+            snapshot.putLong(entry.time);
+        }
+        snapshot.putInt(checksum(snapshot.array(), 0, snapshot.position()));
+        snapshot.flip();
+
+        //Make sure that the new snapshot is completely on disk before it replaces the old one.
+        Path temporary = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (snapshot.hasRemaining()) {
+                channel.write(snapshot);
+            }
+            channel.force(false);
+        }
+        Files.move(temporary, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        //The move must be on disk before the log is emptied, or losing power could bring back the old snapshot with
+        //an empty log.
+        forceDirectory();
+        snapshotSequence = nextSequence - 1;
+
+        //Every record in the log is in the snapshot now.
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            channel.truncate(0);
+            channel.force(false);
+        }
+        logCount = 0;
+    }
+
+    /**
+     * Force the folder to disk, so that files that were created, or moved into it, are still there after losing power.
+     * @throws IOException If the folder can not be forced.
+     */
+    private void forceDirectory() throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (IOException exception) {
+            //Some systems, such as Windows, can not open a folder. Their file systems keep the names of files safe
+            //by themselves.
+            return;
+        }
+        try (FileChannel folder = channel) {
+            folder.force(true);
+        }
+    }
+
+    /**
+     * Read the snapshot, if there is one. A snapshot that is not valid is ignored.
+     * @throws IOException If the file can not be read.
+     */
+    private void readSnapshot() throws IOException {
+        if (Files.isRegularFile(snapshotFile) == false) {
+            return;
+        }
+        ByteBuffer snapshot = ByteBuffer.wrap(Files.readAllBytes(snapshotFile));
+        if (snapshot.remaining() < SNAPSHOT_HEADER_SIZE + 4) {
+            return;
+        }
+        for (byte b : SNAPSHOT_MAGIC) {
+            if (snapshot.get() != b) {
+                return;
+            }
+        }
+        if (snapshot.get() != SNAPSHOT_VERSION) {
+            return;
+        }
+        long sequence = snapshot.getLong();
+        int count = snapshot.getInt();
+        int size = SNAPSHOT_HEADER_SIZE + (count * ENTRY_SIZE);
+        if (count < 0 || count > MAX_ENTRIES || snapshot.limit() != size + 4
+                || snapshot.getInt(size) != checksum(snapshot.array(), 0, size)) {
+            System.err.println("Ignoring damaged high score snapshot: " + snapshotFile);
+            return;
+        }
+
+        for (int i = 0; i < count; i ++) {
+            entries.add(new Entry(snapshot.getLong(), snapshot.getInt(), snapshot.getLong()));
+        }
+        snapshotSequence = sequence;
+    }
+
+    /**
+     * Read the records in the log that are not in the snapshot yet, and cut off anything after the last valid record.
+     * @throws IOException If the file can not be read or cut off.
+     */
+    private void readLog() throws IOException {
+        if (Files.isRegularFile(logFile) == false) {
+            return;
+        }
+        byte[] log = Files.readAllBytes(logFile);
+        ByteBuffer buffer = ByteBuffer.wrap(log);
+
+        int valid = 0;
+        while (valid + RECORD_SIZE <= log.length
+                && buffer.getInt(valid + RECORD_SIZE - 4) == checksum(log, valid, RECORD_SIZE - 4)) {
+            long sequence = buffer.getLong(valid);
+            int score = buffer.getInt(valid + 8);
+            long time = buffer.getLong(valid + 12);
+            //Already merged into the snapshot.
+            if (sequence > snapshotSequence) {
+                insert(new Entry(sequence, score, time));
+                nextSequence = Math.max(nextSequence, sequence + 1);
+            }
+            logCount ++;
+            valid += RECORD_SIZE;
+        }
+
+        //A record was torn: remove it, so that new records start at the right place.
+        if (valid < log.length) {
+            System.err.println("Removing " + (log.length - valid) + " damaged bytes from " + logFile);
+            try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.WRITE)) {
+                channel.truncate(valid);
+                channel.force(false);
+            }
+        }
+    }
+
+    /**
+     * Put an entry into its place in the best scores, and drop the worst score if there are too many.
+     * @param entry The entry.
+     * @return The rank of the entry, starting from 1, or -1 if it was not kept.
+     */
+    private int insert(Entry entry) {
+        //After every better or equal score. Entries are added in order, so equal scores stay in the order they came.
+        int index = entries.size();
+        while (index > 0 && entries.get(index - 1).score < entry.score) {
+            index --;
+        }
+        if (index >= MAX_ENTRIES) {
+            return -1;
+        }
+        entries.add(index, entry);
+        if (entries.size() > MAX_ENTRIES) {
+            entries.remove(entries.size() - 1);
+        }
+        return index + 1;
+    }
+
+    /**
+     * Work out the CRC32 of part of an array.
+     * @param data The array.
+     * @param offset Where the part starts.
+     * @param length The size of the part.
+     * @return The CRC32.
+     */
+    private static int checksum(byte[] data, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(data, offset, length);
+        return (int) crc.getValue();
+    }
+
+    /*  Getters */
+
+    /**
+     * Get the best scores.
+     * @param count The most scores to get.
+     * @return The scores, from best to worst. Fewer than count if not enough scores have been added.
+     */
+    public synchronized int[] getTopScores(int count) {
+        int[] scores = new int[Math.min(count, entries.size())];
+        for (int i = 0; i < scores.length; i ++) {
+            scores[i] = entries.get(i).score;
+        }
+        return scores;
+    }
+
+    /**
+     * Get the best score.
+     * @return The score, or 0 if no scores have been added.
+     */
+    public synchronized int getBestScore() {
+        if (entries.isEmpty() == true) {
+            return 0;
+        }
+        return entries.get(0).score;
+    }
+
+    /**
+     * One score in the table.
+     */
+    private static class Entry {
+
+        //The order in which the score was added, starting from 1.
+        private long sequence;
+
+        //The score, and when it was added, in millis since 1970.
+        private int score;
+        private long time;
+
+        private Entry(long sequence, int score, long time) {
+            this.sequence = sequence;
+            this.score = score;
+            this.time = time;
+        }
+    }
+}
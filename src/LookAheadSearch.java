@@ -0,0 +1,246 @@
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * This class finds the best place to put a Tetromino by also looking at the Tetromino after it. Every placement of the
+ * current Tetromino is tried, and for each one, every placement of the next Tetromino. A placement of the current
+ * Tetromino is as good as the best Board that the next Tetromino can make from it. This takes a lot longer than a
+ * single PlacementSearch, about 1,600 scored Boards per move on a 10 column Grid, so the placements of the current
+ * Tetromino are searched in parallel, using a ForkJoinPool.
+ *
+ * The Board is copied once into a snapshot of row bitmasks, which every task shares but never changes. Each task
+ * copies the snapshot into its own arrays when it places a Tetromino, so the tasks never need to wait for each other.
+ * The result does not depend on the number of threads: ties go to the placement that was tried first.
+ *
+ * Scores can be stored in a TranspositionTable, which all of the tasks share. Many Boards are reached more than once,
+ * for example when two rotations of a Tetromino look the same.
+ */
+public class LookAheadSearch {
+
+    //The Heuristic used to score Boards.
+    private Heuristic heuristic;
+
+    //The threads that the search runs on.
+    private ForkJoinPool pool;
+
+    //Stores the scores of Boards, or null to always score them.
+    private TranspositionTable table = null;
+
+    //Used when every placement loses within two Tetrominoes.
+    private PlacementSearch fallbackSearch = null;
+
+    //The best placement found by the last search, and its score.
+    private int bestRotation, bestOriginX;
+    private double bestScore;
+
+    /**
+     * Constructor.
+     * @param heuristic The Heuristic used to score Boards.
+     * @param pool The threads to run the search on.
+     */
+    public LookAheadSearch(Heuristic heuristic, ForkJoinPool pool) {
+        this.heuristic = heuristic;
+        this.pool = pool;
+    }
+
+    /**
+     * Finds the best placement for a Tetromino, knowing which Tetromino comes next. Afterwards, the placement can be
+     * found with getBestRotation() and getBestOriginX().
+     * @param board The Board to place the Tetromino on.
+     * @param shape The shape of the current Tetromino (see TetrominoShape).
+     * @param nextShape The shape of the next Tetromino.
+     * @return True if a placement was found that does not lose the game within two Tetrominoes.
+     */
+    public boolean search(Board board, int shape, int nextShape) {
+
+        //Take the snapshot that every task shares.
+        long[] snapshot = new long[board.getRows() + Board.HIDDEN_ROWS];
+        board.copyRowMasks(snapshot);
+        int[] columnTops = new int[board.getColumns()];
+        PlacementSearch.findColumnTops(snapshot, board.getColumns(), columnTops);
+        long hash = 0;
+        if (table != null) {
+            hash = table.hash(snapshot);
+        }
+
+        //One task for each placement of the current Tetromino.
+        ArrayList<PlacementTask> tasks = new ArrayList<>();
+        for (int rotation = 0; rotation < TetrominoShape.ROTATION_COUNT; rotation ++) {
+            int minX = PlacementSearch.getMinOffsetX(shape, rotation);
+            int maxX = PlacementSearch.getMaxOffsetX(shape, rotation);
+            for (int originX = -minX; originX < board.getColumns() - maxX; originX ++) {
+                tasks.add(new PlacementTask(snapshot, columnTops, hash, board.getColumns(), board.getFullRowMask(),
+                        shape, rotation, originX, nextShape));
+            }
+        }
+        pool.invoke(new SearchTask(tasks));
+
+        //Go through the results in the order they were created, so that ties are always broken the same way.
+        bestScore = Double.NEGATIVE_INFINITY;
+        bestOriginX = -1;
+        for (PlacementTask task : tasks) {
+            double score = task.join();
+            if (score > bestScore) {
+                bestScore = score;
+                bestRotation = task.rotation;
+                bestOriginX = task.originX;
+            }
+        }
+
+        //Everything loses within two Tetrominoes. Look at the current Tetromino only, which may still survive.
+        if (bestOriginX == -1) {
+            if (fallbackSearch == null || fallbackSearch.getColumns() != board.getColumns()
+                    || fallbackSearch.getRows() != board.getRows()) {
+                fallbackSearch = new PlacementSearch(heuristic, board.getColumns(), board.getRows());
+                fallbackSearch.setTranspositionTable(table);
+            }
+            fallbackSearch.search(board, shape);
+            bestRotation = fallbackSearch.getBestRotation();
+            bestOriginX = fallbackSearch.getBestOriginX();
+            bestScore = Double.NEGATIVE_INFINITY;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Runs all of the placement tasks, in parallel.
+     */
+    private static class SearchTask extends RecursiveTask<Void> {
+
+        //Tasks are never serialized, but RecursiveTask is Serializable.
+        final private static long serialVersionUID = 1L;
+
+        //The tasks to run.
+        private ArrayList<PlacementTask> tasks;
+
+        private SearchTask(ArrayList<PlacementTask> tasks) {
+            this.tasks = tasks;
+        }
+
+        @Override
+        protected Void compute() {
+            invokeAll(tasks);
+            return null;
+        }
+    }
+
+    /**
+     * Scores one placement of the current Tetromino: places it, then tries every placement of the next Tetromino.
+     * The result is the best score of those, or negative infinity if the game is lost either way.
+     */
+    private class PlacementTask extends RecursiveTask<Double> {
+
+        //Tasks are never serialized, but RecursiveTask is Serializable.
+        final private static long serialVersionUID = 1L;
+
+        //The shared snapshot of the Board, the top of each of its columns, and its hash. Never changed.
+        private long[] snapshot;
+        private int[] columnTops;
+        private long snapshotHash;
+
+        //The size of the Board.
+        private int columns;
+        private long fullRowMask;
+
+        //The placement of the current Tetromino, and the shape of the next.
+        private int shape, rotation, originX;
+        private int nextShape;
+
+        private PlacementTask(long[] snapshot, int[] columnTops, long snapshotHash, int columns, long fullRowMask,
+                              int shape, int rotation, int originX, int nextShape) {
+            this.snapshot = snapshot;
+            this.columnTops = columnTops;
+            this.snapshotHash = snapshotHash;
+            this.columns = columns;
+            this.fullRowMask = fullRowMask;
+            this.shape = shape;
+            this.rotation = rotation;
+            this.originX = originX;
+            this.nextShape = nextShape;
+        }
+
+        @Override
+        protected Double compute() {
+
+            //Copy the snapshot while placing the current Tetromino.
+            long[] placed = new long[snapshot.length];
+            int lines = PlacementSearch.place(snapshot, columnTops, shape, rotation, originX, placed, fullRowMask);
+            if (lines == -1) {
+                return Double.NEGATIVE_INFINITY;
+            }
+            int[] placedTops = new int[columns];
+            PlacementSearch.findColumnTops(placed, columns, placedTops);
+
+            long hash = 0;
+            if (table != null) {
+                hash = PlacementSearch.hashPlacement(table, snapshotHash, snapshot, columnTops, placed, lines, shape,
+                        rotation, originX);
+            }
+
+            long[] nextPlaced = new long[snapshot.length];
+            int[] heights = new int[columns];
+            double best = Double.NEGATIVE_INFINITY;
+            for (int nextRotation = 0; nextRotation < TetrominoShape.ROTATION_COUNT; nextRotation ++) {
+                int minX = PlacementSearch.getMinOffsetX(nextShape, nextRotation);
+                int maxX = PlacementSearch.getMaxOffsetX(nextShape, nextRotation);
+                for (int nextOriginX = -minX; nextOriginX < columns - maxX; nextOriginX ++) {
+                    int nextLines = PlacementSearch.place(placed, placedTops, nextShape, nextRotation, nextOriginX,
+                            nextPlaced, fullRowMask);
+                    if (nextLines == -1) {
+                        continue;
+                    }
+                    if (table == null) {
+                        best = Math.max(best, heuristic.evaluate(nextPlaced, columns, lines + nextLines, heights));
+                    }
+                    else {
+                        long nextHash = PlacementSearch.hashPlacement(table, hash, placed, placedTops, nextPlaced,
+                                nextLines, nextShape, nextRotation, nextOriginX);
+                        best = Math.max(best, PlacementSearch.score(heuristic, table, nextHash, nextPlaced, columns,
+                                lines + nextLines, heights));
+                    }
+                }
+            }
+            return best;
+        }
+    }
+
+    /**
+     * Store scores in a TranspositionTable, so that Boards that were already scored are not scored again. The table
+     * is shared by every thread.
+     * @param table The table, which must only hold scores from this search`s Heuristic, or null to not store scores.
+     */
+    public void setTranspositionTable(TranspositionTable table) {
+        this.table = table;
+        if (fallbackSearch != null) {
+            fallbackSearch.setTranspositionTable(table);
+        }
+    }
+
+    /*  Getters */
+
+    /**
+     * Get the rotation of the best placement found by the last search.
+     * @return The number of counter-clockwise rotations.
+     */
+    public int getBestRotation() {
+        return bestRotation;
+    }
+
+    /**
+     * Get the column of the origin of the best placement found by the last search.
+     * @return The column.
+     */
+    public int getBestOriginX() {
+        return bestOriginX;
+    }
+
+    /**
+     * Get the score of the best placement found by the last search.
+     * @return The score, or negative infinity if every placement loses within two Tetrominoes.
+     */
+    public double getBestScore() {
+        return bestScore;
+    }
+}
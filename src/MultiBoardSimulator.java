@@ -0,0 +1,232 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Simulates many games at once, for training and testing the computer player. Instead of a Grid full of Block
+ * objects for each game, the Boards of all of the games are stored one after the other in a single array of row
+ * bitmasks, and everything else about the games is stored in arrays with one element per game. Each call moves every
+ * game that is still going forward by one Tetromino.
+ *
+ * The games follow the same rules as GameEngine: Tetrominoes drop straight down from above, full rows are only cleared
+ * below the terminal line, and a block left on or above the terminal line ends the game. Tetrominoes come from a
+ * 7-bag for each game (see BagPieceGenerator), seeded from the seed of the simulator and the number of the game.
+ *
+ * A simulator is not thread safe. To use more cores, split the games between several simulators.
+ */
+public class MultiBoardSimulator {
+
+    //Added to the seed for each game, to spread out the seeds of neighbouring games.
+    final private static long SEED_INCREMENT = 0x9E3779B97F4A7C15L;
+
+    //The number of games, and the size of every Board.
+    private int boards;
+    private int columns, rows;
+    //The number of row bitmasks per Board, including the hidden rows.
+    private int rowIndices;
+    private long fullRowMask;
+
+    //The row bitmasks of every Board. Board b starts at index (b * rowIndices).
+    private long[] rowMasks;
+
+    //For each game: the shape of the current Tetromino, the lines cleared, the Tetrominoes placed, and whether it is
+    //over.
+    private int[] shapes;
+    private int[] linesCleared;
+    private int[] piecesPlaced;
+    private boolean[] gameOver;
+    //The number of games that are not over.
+    private int liveBoards;
+
+    //The 7-bag of each game: the shapes in order, starting at index (b * SHAPE_COUNT), and how many have been used.
+    private int[] bags;
+    private int[] bagPositions;
+    private SplittableRandom[] randoms;
+    private long seed;
+
+    //Space used while placing.
+    private int[] columnTops;
+
+    /**
+     * Constructor. Starts every game.
+     * @param boards The number of games.
+     * @param columns The number of columns of every Board.
+     * @param rows The number of visible rows of every Board.
+     * @param seed The seed for the Tetrominoes.
+     */
+    public MultiBoardSimulator(int boards, int columns, int rows, long seed) {
+        this.boards = boards;
+        this.columns = columns;
+        this.rows = rows;
+        this.seed = seed;
+        rowIndices = rows + Board.HIDDEN_ROWS;
+        fullRowMask = new Board(columns, 1).getFullRowMask();
+
+        rowMasks = new long[boards * rowIndices];
+        shapes = new int[boards];
+        linesCleared = new int[boards];
+        piecesPlaced = new int[boards];
+        gameOver = new boolean[boards];
+        bags = new int[boards * TetrominoShape.SHAPE_COUNT];
+        bagPositions = new int[boards];
+        randoms = new SplittableRandom[boards];
+        columnTops = new int[columns];
+
+        reset();
+    }
+
+    /**
+     * Start every game again, from an empty Board.
+     */
+    public void reset() {
+        Arrays.fill(rowMasks, 0);
+        Arrays.fill(linesCleared, 0);
+        Arrays.fill(piecesPlaced, 0);
+        Arrays.fill(gameOver, false);
+        Arrays.fill(bagPositions, TetrominoShape.SHAPE_COUNT);
+        liveBoards = boards;
+        for (int b = 0; b < boards; b ++) {
+            randoms[b] = new SplittableRandom(seed + (b * SEED_INCREMENT));
+            shapes[b] = nextShape(b);
+        }
+    }
+
+    /**
+     * Place the current Tetromino of every game that is not over, and give each of them the next Tetromino.
+     * @param rotations The rotation to place each game`s Tetromino with.
+     * @param originXs The column of the origin of each game`s Tetromino. Every block must be inside of the Board.
+     */
+    public void placeAll(int[] rotations, int[] originXs) {
+        for (int b = 0; b < boards; b ++) {
+            if (gameOver[b] == false) {
+                place(b, rotations[b], originXs[b]);
+            }
+        }
+    }
+
+    /**
+     * Let the computer player choose where to place the current Tetromino of every game that is not over, and place
+     * them.
+     * @param search The search to choose the placements with. Must be for Boards of the same size.
+     */
+    public void placeAllBest(PlacementSearch search) {
+        for (int b = 0; b < boards; b ++) {
+            if (gameOver[b] == false) {
+                search.search(rowMasks, b * rowIndices, shapes[b]);
+                place(b, search.getBestRotation(), search.getBestOriginX());
+            }
+        }
+    }
+
+    /**
+     * Drop the current Tetromino of a game straight down, clear the full rows, check if the game is over, and move on
+     * to the next Tetromino.
+     * @param board The number of the game.
+     * @param rotation The rotation of the Tetromino.
+     * @param originX The column of the origin. Every block must be inside of the Board.
+     */
+    public void place(int board, int rotation, int originX) {
+        int base = board * rowIndices;
+
+        //The same rules as PlacementSearch, applied to the Board in place.
+        PlacementSearch.findColumnTops(rowMasks, base, rowIndices, columns, columnTops);
+        if (PlacementSearch.dropTetromino(rowMasks, base, columnTops, shapes[board], rotation, originX) == false) {
+            endGame(board);
+            return;
+        }
+        piecesPlaced[board] ++;
+        linesCleared[board] += PlacementSearch.clearFullRows(rowMasks, base, rowIndices, fullRowMask);
+        if (PlacementSearch.reachesTerminalLine(rowMasks, base) == true) {
+            endGame(board);
+            return;
+        }
+
+        shapes[board] = nextShape(board);
+    }
+
+    /**
+     * End a game.
+     * @param board The number of the game.
+     */
+    private void endGame(int board) {
+        gameOver[board] = true;
+        liveBoards --;
+    }
+
+    /**
+     * Take the next shape out of a game`s 7-bag, refilling and shuffling it when it is empty.
+     * @param board The number of the game.
+     * @return The shape.
+     */
+    private int nextShape(int board) {
+        int base = board * TetrominoShape.SHAPE_COUNT;
+        if (bagPositions[board] == TetrominoShape.SHAPE_COUNT) {
+            for (int i = 0; i < TetrominoShape.SHAPE_COUNT; i ++) {
+                bags[base + i] = i;
+            }
+            //Fisher-Yates shuffle.
+            for (int i = TetrominoShape.SHAPE_COUNT - 1; i > 0; i --) {
+                int j = randoms[board].nextInt(i + 1);
+                int swap = bags[base + i];
+                bags[base + i] = bags[base + j];
+                bags[base + j] = swap;
+            }
+            bagPositions[board] = 0;
+        }
+        int shape = bags[base + bagPositions[board]];
+        bagPositions[board] ++;
+        return shape;
+    }
+
+    /*  Getters */
+
+    /**
+     * Get the bitmask of a row of a game`s Board.
+     * @param board The number of the game.
+     * @param y The row. Hidden rows have negative numbers.
+     * @return The bitmask. Bit x is set if the cell in column x is occupied.
+     */
+    public long getRowMask(int board, int y) {
+        return rowMasks[(board * rowIndices) + y + Board.HIDDEN_ROWS];
+    }
+
+    /**
+     * Get the shape of a game`s current Tetromino.
+     * @param board The number of the game.
+     * @return The shape (see TetrominoShape).
+     */
+    public int getShape(int board) {
+        return shapes[board];
+    }
+
+    public int getLinesCleared(int board) {
+        return linesCleared[board];
+    }
+
+    public int getPiecesPlaced(int board) {
+        return piecesPlaced[board];
+    }
+
+    public boolean isGameOver(int board) {
+        return gameOver[board];
+    }
+
+    /**
+     * Get the number of games that are not over.
+     * @return The number of games.
+     */
+    public int getLiveBoards() {
+        return liveBoards;
+    }
+
+    public int getBoards() {
+        return boards;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+}
@@ -69,9 +69,10 @@ public class Overlay extends TextComponent{
     /**
      * Updates the buttons to their states.
      * @param e The mouse event.
+     * @return The area covered by the buttons whose state changed, or null if no button changed.
      */
-    public void updateButtonStates(MouseEvent e) {
-        buttonManager.updateButtonStates(e);
+    public Rectangle updateButtonStates(MouseEvent e) {
+        return buttonManager.updateButtonStates(e);
     }
 
     /**
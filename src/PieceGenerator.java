@@ -0,0 +1,33 @@
+import java.awt.*;
+
+/**
+ * This class decides which Tetromino comes next: its shape and its colour. Each game uses one PieceGenerator for all
+ * of its Tetrominoes, so that the whole sequence of pieces comes from a single source. Generators that use random
+ * numbers are created with a seed, so that the same seed always gives the same sequence.
+ */
+public abstract class PieceGenerator {
+
+    /**
+     * Get the shape of the next Tetromino.
+     * @return The shape (see TetrominoShape).
+     */
+    public abstract int nextShape();
+
+    /**
+     * Get the colour of the next Tetromino. Called after nextShape(), once for every Tetromino.
+     * @return The colour. Must be one of the colours that a block can have (see Block.getColour()).
+     */
+    public abstract Color nextColour();
+
+    /**
+     * Skip over pieces, as if they had been generated. Used to bring a new generator up to where another one, started
+     * the same way, was, such as when a saved game is restored.
+     * @param pieces The number of pieces to skip.
+     */
+    public void skip(long pieces) {
+        for (long i = 0; i < pieces; i ++) {
+            nextShape();
+            nextColour();
+        }
+    }
+}
@@ -0,0 +1,390 @@
+/**
+ * This class finds the best place to put a Tetromino. It tries every rotation of the Tetromino in every column,
+ * drops it straight down, clears any full rows, and scores the result with a Heuristic. The placement with the highest
+ * score wins.
+ *
+ * The Board is copied into an array of row bitmasks first (see Board), so placing and scoring a Tetromino only needs
+ * a few bitwise operations per row, and does not change the game. The arrays are reused between searches, so
+ * searching does not create any objects. Because of that, each thread needs its own PlacementSearch. Scores can be
+ * stored in a TranspositionTable, so that Boards that were already scored are not scored again.
+ *
+ * The same rules as the game are used: full rows are only cleared below the terminal line, and a placement that
+ * leaves any block on or above the terminal line loses the game.
+ */
+public class PlacementSearch {
+
+    //The row index, in the bitmask arrays, of the terminal line (row 0 of the Grid).
+    final private static int TERMINAL_LINE_INDEX = Board.HIDDEN_ROWS;
+
+    //The Heuristic used to score Boards.
+    private Heuristic heuristic;
+
+    //Stores the scores of Boards, or null to always score them.
+    private TranspositionTable table = null;
+
+    //The size of the Board.
+    private int columns, rows;
+    //The bitmask of a full row.
+    private long fullRowMask;
+
+    //The Board being searched, the Board after a placement, and the highest occupied row index of each column.
+    private long[] rowMasks;
+    private long[] placedMasks;
+    private int[] columnTops;
+    //Space for the Heuristic.
+    private int[] heights;
+
+    //The best placement found by the last search, and its score.
+    private int bestRotation, bestOriginX;
+    private double bestScore;
+
+    /**
+     * Constructor.
+     * @param heuristic The Heuristic used to score Boards.
+     * @param columns The number of columns of the Boards that will be searched.
+     * @param rows The number of visible rows of the Boards that will be searched.
+     */
+    public PlacementSearch(Heuristic heuristic, int columns, int rows) {
+        this.heuristic = heuristic;
+        this.columns = columns;
+        this.rows = rows;
+        fullRowMask = new Board(columns, 1).getFullRowMask();
+        rowMasks = new long[rows + Board.HIDDEN_ROWS];
+        placedMasks = new long[rows + Board.HIDDEN_ROWS];
+        columnTops = new int[columns];
+        heights = new int[columns];
+    }
+
+    /**
+     * Finds the best placement for a Tetromino. Afterwards, the placement can be found with getBestRotation() and
+     * getBestOriginX().
+     * @param board The Board to place the Tetromino on. Must be the size given to the constructor.
+     * @param shape The shape of the Tetromino (see TetrominoShape).
+     * @return True if a placement was found that does not lose the game, false if every placement loses.
+     */
+    public boolean search(Board board, int shape) {
+        board.copyRowMasks(rowMasks);
+        return search(shape);
+    }
+
+    /**
+     * Finds the best placement for a Tetromino on a Board given as row bitmasks. Afterwards, the placement can be
+     * found with getBestRotation() and getBestOriginX().
+     * @param boardMasks The row bitmasks of the Board, including the hidden rows (see Board).
+     * @param offset The index in boardMasks of the top hidden row of the Board. Lets many Boards share one array.
+     * @param shape The shape of the Tetromino (see TetrominoShape).
+     * @return True if a placement was found that does not lose the game, false if every placement loses.
+     */
+    public boolean search(long[] boardMasks, int offset, int shape) {
+        System.arraycopy(boardMasks, offset, rowMasks, 0, rowMasks.length);
+        return search(shape);
+    }
+
+    /**
+     * Finds the best placement for a Tetromino on the Board that was copied into rowMasks.
+     * @param shape The shape of the Tetromino.
+     * @return True if a placement was found that does not lose the game, false if every placement loses.
+     */
+    private boolean search(int shape) {
+        findColumnTops(rowMasks, columns, columnTops);
+        long hash = 0;
+        if (table != null) {
+            hash = table.hash(rowMasks);
+        }
+
+        bestScore = Double.NEGATIVE_INFINITY;
+        bestRotation = 0;
+        bestOriginX = -1;
+        for (int rotation = 0; rotation < TetrominoShape.ROTATION_COUNT; rotation ++) {
+            int minX = getMinOffsetX(shape, rotation);
+            int maxX = getMaxOffsetX(shape, rotation);
+            for (int originX = -minX; originX < columns - maxX; originX ++) {
+                int lines = place(rowMasks, columnTops, shape, rotation, originX, placedMasks, fullRowMask);
+                if (lines == -1) {
+                    continue;
+                }
+                double score;
+                if (table == null) {
+                    score = heuristic.evaluate(placedMasks, columns, lines, heights);
+                }
+                else {
+                    score = score(heuristic, table, hashPlacement(table, hash, rowMasks, columnTops, placedMasks,
+                            lines, shape, rotation, originX), placedMasks, columns, lines, heights);
+                }
+                if (score > bestScore) {
+                    bestScore = score;
+                    bestRotation = rotation;
+                    bestOriginX = originX;
+                }
+            }
+        }
+
+        //Every placement loses. Pick the first one that fits, so that the game can end normally.
+        if (bestOriginX == -1) {
+            bestOriginX = -getMinOffsetX(shape, 0);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Drops a Tetromino straight down onto a Board from above, and clears the full rows below the terminal line.
+     * @param rowMasks The row bitmasks of the Board, including the hidden rows. Not changed.
+     * @param columnTops The highest occupied row index of each column, or the number of row indices if it is empty.
+     * @param shape The shape of the Tetromino.
+     * @param rotation The rotation of the Tetromino.
+     * @param originX The column of the origin. Every block must be inside of the Board.
+     * @param result Where to store the row bitmasks of the Board after the placement. Same length as rowMasks.
+     * @param fullRowMask The bitmask of a full row.
+     * @return The number of rows cleared, or -1 if the placement loses the game.
+     */
+    public static int place(long[] rowMasks, int[] columnTops, int shape, int rotation, int originX, long[] result,
+                            long fullRowMask) {
+
+        System.arraycopy(rowMasks, 0, result, 0, rowMasks.length);
+        if (dropTetromino(result, 0, columnTops, shape, rotation, originX) == false) {
+            return -1;
+        }
+        int lines = clearFullRows(result, 0, result.length, fullRowMask);
+        if (reachesTerminalLine(result, 0) == true) {
+            return -1;
+        }
+        return lines;
+    }
+
+    /**
+     * Drops a Tetromino straight down onto a Board from above, changing the Board. The placement rules are only
+     * written here, in clearFullRows() and in reachesTerminalLine(), so that every simulation of the game follows
+     * the same rules.
+     * @param rowMasks The row bitmasks of one or more Boards, including the hidden rows.
+     * @param offset The index in rowMasks of the top hidden row of the Board.
+     * @param columnTops The highest occupied row index of each column of the Board, or the number of row indices if it
+     *                   is empty.
+     * @param shape The shape of the Tetromino.
+     * @param rotation The rotation of the Tetromino.
+     * @param originX The column of the origin. Every block must be inside of the Board.
+     * @return True if the Tetromino was placed, false if it sticks out of the top of the Board, which loses the game.
+     *         Some of its blocks may have been placed.
+     */
+    public static boolean dropTetromino(long[] rowMasks, int offset, int[] columnTops, int shape, int rotation,
+                                        int originX) {
+        int originY = getLandingIndex(columnTops, shape, rotation, originX);
+        for (int i = 0; i < TetrominoShape.BLOCK_COUNT; i ++) {
+            int index = originY + TetrominoShape.getOffsetY(shape, rotation, i);
+            //Sticks out of the top of the Board.
+            if (index < 0) {
+                return false;
+            }
+            rowMasks[offset + index] |= 1L << (originX + TetrominoShape.getOffsetX(shape, rotation, i));
+        }
+        return true;
+    }
+
+    /**
+     * Clears the full rows of a Board below the terminal line, moving the rows that are kept down into place.
+     * @param rowMasks The row bitmasks of one or more Boards, including the hidden rows.
+     * @param offset The index in rowMasks of the top hidden row of the Board.
+     * @param length The number of row indices of the Board.
+     * @param fullRowMask The bitmask of a full row.
+     * @return The number of rows cleared.
+     */
+    public static int clearFullRows(long[] rowMasks, int offset, int length, long fullRowMask) {
+        int lines = 0;
+        int write = offset + length - 1;
+        for (int read = offset + length - 1; read >= offset; read --) {
+            if (read - offset > TERMINAL_LINE_INDEX && rowMasks[read] == fullRowMask) {
+                lines ++;
+            }
+            else {
+                rowMasks[write] = rowMasks[read];
+                write --;
+            }
+        }
+        for (int index = write; index >= offset; index --) {
+            rowMasks[index] = 0;
+        }
+        return lines;
+    }
+
+    /**
+     * Checks if a Board has a block on or above the terminal line, which ends the game.
+     * @param rowMasks The row bitmasks of one or more Boards, including the hidden rows.
+     * @param offset The index in rowMasks of the top hidden row of the Board.
+     * @return True for yes, false for no.
+     */
+    public static boolean reachesTerminalLine(long[] rowMasks, int offset) {
+        for (int index = 0; index <= TERMINAL_LINE_INDEX; index ++) {
+            if (rowMasks[offset + index] != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds the row index that the origin of a Tetromino lands on, when dropped straight down from above: the highest
+     * row where no block is at or below the top of its column.
+     * @param columnTops The highest occupied row index of each column.
+     * @param shape The shape of the Tetromino.
+     * @param rotation The rotation of the Tetromino.
+     * @param originX The column of the origin.
+     * @return The row index.
+     */
+    public static int getLandingIndex(int[] columnTops, int shape, int rotation, int originX) {
+        int originIndex = Integer.MAX_VALUE;
+        for (int i = 0; i < TetrominoShape.BLOCK_COUNT; i ++) {
+            int x = originX + TetrominoShape.getOffsetX(shape, rotation, i);
+            originIndex = Math.min(originIndex, columnTops[x] - 1 - TetrominoShape.getOffsetY(shape, rotation, i));
+        }
+        return originIndex;
+    }
+
+    /**
+     * Calculates the hash of a Board after placing a Tetromino on it. If no rows were cleared, only the four cells of
+     * the Tetromino change, so the hash is updated from the hash before. Otherwise, it is calculated again.
+     * @param table The TranspositionTable that the hash is for.
+     * @param hash The hash of the Board before the placement.
+     * @param rowMasks The Board before the placement.
+     * @param columnTops The highest occupied row index of each column, before the placement.
+     * @param placedMasks The Board after the placement.
+     * @param lines The number of rows cleared by the placement.
+     * @param shape The shape of the Tetromino.
+     * @param rotation The rotation of the Tetromino.
+     * @param originX The column of the origin.
+     * @return The hash of the Board after the placement.
+     */
+    public static long hashPlacement(TranspositionTable table, long hash, long[] rowMasks, int[] columnTops,
+                                     long[] placedMasks, int lines, int shape, int rotation, int originX) {
+        if (lines == 0) {
+            return table.togglePiece(hash, shape, rotation, originX,
+                    getLandingIndex(columnTops, shape, rotation, originX));
+        }
+        return table.hash(placedMasks);
+    }
+
+    /**
+     * Scores a Board, using the score stored in a TranspositionTable if there is one. Otherwise, the Board is scored,
+     * and the score is stored.
+     * @param heuristic The Heuristic to score with. Must be the one that the table's scores came from.
+     * @param table The TranspositionTable.
+     * @param hash The hash of the Board.
+     * @param rowMasks The row bitmasks of the Board.
+     * @param columns The number of columns.
+     * @param lines The number of lines that were cleared to get to the Board.
+     * @param heights Space for the Heuristic.
+     * @return The score.
+     */
+    public static double score(Heuristic heuristic, TranspositionTable table, long hash, long[] rowMasks,
+                               int columns, int lines, int[] heights) {
+        double boardScore = table.get(hash);
+        if (Double.isNaN(boardScore)) {
+            boardScore = heuristic.evaluateBoard(rowMasks, columns, heights);
+            table.put(hash, boardScore);
+        }
+        return boardScore + (heuristic.getLinesWeight() * lines);
+    }
+
+    /**
+     * Finds the highest occupied row index of every column.
+     * @param rowMasks The row bitmasks of the Board, including the hidden rows.
+     * @param columns The number of columns.
+     * @param columnTops Where to store the row indices. The number of row indices is stored for empty columns.
+     */
+    public static void findColumnTops(long[] rowMasks, int columns, int[] columnTops) {
+        findColumnTops(rowMasks, 0, rowMasks.length, columns, columnTops);
+    }
+
+    /**
+     * Finds the highest occupied row index of every column of a Board, going down the Board once for all of them.
+     * @param rowMasks The row bitmasks of one or more Boards, including the hidden rows.
+     * @param offset The index in rowMasks of the top hidden row of the Board.
+     * @param length The number of row indices of the Board.
+     * @param columns The number of columns.
+     * @param columnTops Where to store the row indices, counted from the top of the Board. The number of row indices
+     *                   is stored for empty columns.
+     */
+    public static void findColumnTops(long[] rowMasks, int offset, int length, int columns, int[] columnTops) {
+        for (int x = 0; x < columns; x ++) {
+            columnTops[x] = length;
+        }
+        long covered = 0;
+        for (int index = 0; index < length; index ++) {
+            long newlyCovered = rowMasks[offset + index] & ~covered;
+            while (newlyCovered != 0) {
+                columnTops[Long.numberOfTrailingZeros(newlyCovered)] = index;
+                newlyCovered &= newlyCovered - 1;
+            }
+            covered |= rowMasks[offset + index];
+        }
+    }
+
+    /**
+     * Get the smallest horizontal offset of any block from the origin.
+     * @param shape The shape.
+     * @param rotation The rotation.
+     * @return The offset.
+     */
+    public static int getMinOffsetX(int shape, int rotation) {
+        int minX = 0;
+        for (int i = 0; i < TetrominoShape.BLOCK_COUNT; i ++) {
+            minX = Math.min(minX, TetrominoShape.getOffsetX(shape, rotation, i));
+        }
+        return minX;
+    }
+
+    /**
+     * Get the largest horizontal offset of any block from the origin.
+     * @param shape The shape.
+     * @param rotation The rotation.
+     * @return The offset.
+     */
+    public static int getMaxOffsetX(int shape, int rotation) {
+        int maxX = 0;
+        for (int i = 0; i < TetrominoShape.BLOCK_COUNT; i ++) {
+            maxX = Math.max(maxX, TetrominoShape.getOffsetX(shape, rotation, i));
+        }
+        return maxX;
+    }
+
+    /**
+     * Store scores in a TranspositionTable, so that Boards that were already scored are not scored again.
+     * @param table The table, which must only hold scores from this search`s Heuristic, or null to not store scores.
+     */
+    public void setTranspositionTable(TranspositionTable table) {
+        this.table = table;
+    }
+
+    /*  Getters */
+
+    /**
+     * Get the rotation of the best placement found by the last search.
+     * @return The number of counter-clockwise rotations.
+     */
+    public int getBestRotation() {
+        return bestRotation;
+    }
+
+    /**
+     * Get the column of the origin of the best placement found by the last search.
+     * @return The column.
+     */
+    public int getBestOriginX() {
+        return bestOriginX;
+    }
+
+    /**
+     * Get the score of the best placement found by the last search.
+     * @return The score, or negative infinity if every placement loses.
+     */
+    public double getBestScore() {
+        return bestScore;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+}
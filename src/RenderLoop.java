@@ -0,0 +1,114 @@
+import java.awt.*;
+import java.awt.image.BufferStrategy;
+
+import javax.swing.JFrame;
+import javax.swing.SwingUtilities;
+
+/**
+ * Active rendering mode. Instead of relying on Swing timers and repaint(), which share the Event Dispatching Thread
+ * with the mouse and keyboard, a separate thread updates and draws the GamePanel in a loop. Frames are drawn into a
+ * BufferStrategy, which flips pages when the graphics card supports it.
+ * Implements Runnable, to run in a separate thread.
+ */
+public class RenderLoop implements Runnable {
+
+    //The number of buffers to use. Two means that one frame is shown while the next is drawn.
+    final private static int BUFFER_COUNT = 2;
+
+    //The window and the panel inside of it.
+    private JFrame frame;
+    private GamePanel panel;
+
+    //The buffers to draw on.
+    private BufferStrategy strategy;
+
+    //The thread that runs the loop, and whether or not it should keep running.
+    private Thread thread;
+    private volatile boolean running = false;
+
+    /**
+     * Constructor.
+     * @param frame The window. Must already be visible.
+     * @param panel The panel to draw. Must be inside of the window.
+     */
+    public RenderLoop(JFrame frame, GamePanel panel) {
+        this.frame = frame;
+        this.panel = panel;
+    }
+
+    /**
+     * Start the loop in a new thread. Swing will no longer repaint the window by itself.
+     */
+    public void start() {
+        frame.setIgnoreRepaint(true);
+        panel.setIgnoreRepaint(true);
+        frame.createBufferStrategy(BUFFER_COUNT);
+        strategy = frame.getBufferStrategy();
+
+        running = true;
+        thread = new Thread(this, "Render Loop");
+        //Do not keep the program running after the window is closed.
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stop the loop. The current frame is finished first.
+     */
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public void run() {
+
+        //Time to wait between frames, in nanoseconds.
+        long frameTime = (long) (1000000000L / GamePanel.getTargetFPS());
+        long nextFrameTime = System.nanoTime();
+
+        while (running == true) {
+
+            //Move the game forward to match the current time, then draw it.
+            panel.advance(System.nanoTime());
+            render();
+
+            //Wait until the next frame. If drawing took too long, do not try to catch up.
+            nextFrameTime += frameTime;
+            long waitTime = nextFrameTime - System.nanoTime();
+            if (waitTime > 0) {
+                try {
+                    Thread.sleep(waitTime / 1000000, (int) (waitTime % 1000000));
+                } catch (InterruptedException exception) {
+                    running = false;
+                }
+            }
+            else {
+                nextFrameTime = System.nanoTime();
+            }
+        }
+    }
+
+    /**
+     * Draw one frame onto the next buffer, and show it. If the buffers were lost while drawing, draw again.
+     */
+    private void render() {
+        do {
+            do {
+                Graphics g = strategy.getDrawGraphics();
+
+                //Move to the position of the panel inside of the window, which is below the title bar.
+                Point location = SwingUtilities.convertPoint(panel, 0, 0, frame);
+                g.translate(location.x, location.y);
+                g.clipRect(0, 0, panel.getWidth(), panel.getHeight());
+                panel.paint(g);
+
+                g.dispose();
+            } while (strategy.contentsRestored());
+
+            strategy.show();
+        } while (strategy.contentsLost());
+
+        //Make sure the frame is shown right away on systems that buffer drawing commands.
+        Toolkit.getDefaultToolkit().sync();
+    }
+}
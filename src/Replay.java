@@ -0,0 +1,266 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * A recorded game, read from the format written by ReplayRecorder. It can be played back in the game window, giving
+ * the engine the recorded input on each tick, or without a window as fast as the CPU allows, to check that the replay
+ * still gives the recorded score.
+ *
+ * Run this class with replay files as arguments to play them back and check them. Every game in a ReplayArchive is
+ * checked.
+ */
+public class Replay {
+
+    //The most rows that a replay`s Grid can have. Far more than any game uses, but small enough that a damaged file
+    //can not make the Grid use up the memory.
+    final private static int MAX_ROWS = 1 << 16;
+
+    //The seed of the game`s BagPieceGenerator, and the size of the game Grid.
+    private long seed;
+    private int columns, rows;
+
+    //The tick and the input of each recorded input, in order.
+    private long[] ticks;
+    private GameEngine.Input[] inputs;
+
+    //The number of ticks that the game lasted, and its final score.
+    private long length;
+    private int score;
+
+    //The next input to give during playback.
+    private int position = 0;
+
+    private Replay() {
+    }
+
+    /**
+     * Reads a replay.
+     * @param data The bytes written by ReplayRecorder.
+     * @return The replay.
+     * @throws IOException If the data is not a valid replay.
+     */
+    public static Replay read(byte[] data) throws IOException {
+        Reader reader = new Reader(data);
+        for (byte b : ReplayRecorder.MAGIC) {
+            if (reader.readByte() != b) {
+                throw new IOException("Not a replay.");
+            }
+        }
+        int version = reader.readByte();
+        if (version != ReplayRecorder.VERSION) {
+            throw new IOException("Unsupported replay version: " + version);
+        }
+
+        //Checked before anything is made with them, since a damaged file could have any size.
+        long columns = reader.readVarint();
+        long rows = reader.readVarint();
+        if (columns < GameEngine.MIN_SIZE || columns > Board.MAX_COLUMNS || rows < GameEngine.MIN_SIZE
+                || rows > MAX_ROWS) {
+            throw new IOException("Not a valid replay: the Grid is " + columns + " by " + rows + ".");
+        }
+
+        Replay replay = new Replay();
+        replay.columns = (int) columns;
+        replay.rows = (int) rows;
+        for (int i = 0; i < 8; i ++) {
+            replay.seed = (replay.seed << 8) | (reader.readByte() & 0xFF);
+        }
+
+        //Read the inputs until the end.
+        long[] ticks = new long[64];
+        GameEngine.Input[] inputs = new GameEngine.Input[64];
+        int count = 0;
+        long tick = 0;
+        GameEngine.Input[] values = GameEngine.Input.values();
+        while (true) {
+            long event = reader.readVarint();
+            tick += event >>> ReplayRecorder.INPUT_BITS;
+            int ordinal = (int) (event & ((1 << ReplayRecorder.INPUT_BITS) - 1));
+            if (ordinal == GameEngine.Input.NONE.ordinal()) {
+                break;
+            }
+            if (ordinal >= values.length) {
+                throw new IOException("Invalid input in replay: " + ordinal);
+            }
+            if (count == ticks.length) {
+                ticks = Arrays.copyOf(ticks, count * 2);
+                inputs = Arrays.copyOf(inputs, count * 2);
+            }
+            ticks[count] = tick;
+            inputs[count] = values[ordinal];
+            count ++;
+        }
+        replay.ticks = Arrays.copyOf(ticks, count);
+        replay.inputs = Arrays.copyOf(inputs, count);
+        replay.length = tick;
+        replay.score = (int) reader.readVarint();
+        return replay;
+    }
+
+    /**
+     * Reads a replay from a file.
+     * @param file The file.
+     * @return The replay.
+     * @throws IOException If the file can not be read, or is not a valid replay.
+     */
+    public static Replay load(Path file) throws IOException {
+        return read(Files.readAllBytes(file));
+    }
+
+    /**
+     * Starts the recorded game on the specified Grids, and goes back to the first input.
+     * @param gameGrid The Grid that the game is played on. Must be the size of the recorded Grid.
+     * @param sideGrid The Grid that displays the next Tetromino.
+     * @return The engine, ready to be given the recorded inputs with getInput().
+     */
+    public GameEngine createEngine(Grid gameGrid, Grid sideGrid) {
+        position = 0;
+        return new GameEngine(gameGrid, sideGrid, new BagPieceGenerator(seed));
+    }
+
+    /**
+     * Get the recorded input for a tick. Ticks must be asked for in order, starting from 0.
+     * @param tick The tick, from GameEngine.getTicks().
+     * @return The input.
+     */
+    public GameEngine.Input getInput(long tick) {
+        //Skip anything that was missed.
+        while (position < ticks.length && ticks[position] < tick) {
+            position ++;
+        }
+        if (position < ticks.length && ticks[position] == tick) {
+            position ++;
+            return inputs[position - 1];
+        }
+        return GameEngine.Input.NONE;
+    }
+
+    /**
+     * Plays the whole game without drawing it, as fast as possible.
+     * @return The engine, at the end of the game.
+     */
+    public GameEngine play() {
+        GameEngine engine = createEngine(new Grid(0, 0, columns, rows),
+                new Grid(0, 0, Tetromino.getSIZE(), Tetromino.getSIZE()));
+        while (engine.isGameOver() == false && engine.getTicks() < length) {
+            engine.step(getInput(engine.getTicks()));
+        }
+        return engine;
+    }
+
+    /**
+     * Plays the whole game without drawing it, and checks that it ends the same way as when it was recorded.
+     * @return True if the score and the length of the game match, false if not.
+     */
+    public boolean verify() {
+        GameEngine engine = play();
+        return engine.getScore() == score && engine.getTicks() == length;
+    }
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        int failures = 0;
+        for (String arg : args) {
+            try {
+                if (arg.endsWith(ReplayArchive.EXTENSION)) {
+                    try (ReplayArchive archive = ReplayArchive.open(Paths.get(arg), true)) {
+                        for (long id = 0; id < archive.size(); id ++) {
+                            if (check(arg + "#" + id, archive.getReplay(id)) == false) {
+                                failures ++;
+                            }
+                        }
+                    }
+                }
+                else if (check(arg, load(Paths.get(arg))) == false) {
+                    failures ++;
+                }
+            } catch (IOException exception) {
+                System.out.println(arg + ": " + exception.getMessage());
+                failures ++;
+            }
+        }
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    /**
+     * Plays a replay without drawing it, and prints whether it still gives the recorded score.
+     * @param name The name to print.
+     * @param replay The replay.
+     * @return True if the score and the length of the game match, false if not.
+     */
+    private static boolean check(String name, Replay replay) {
+        long startTime = System.nanoTime();
+        GameEngine engine = replay.play();
+        double millis = (System.nanoTime() - startTime) / 1e6;
+        boolean matches = engine.getScore() == replay.score && engine.getTicks() == replay.length;
+        System.out.printf("%s: score %d (recorded %d), %d ticks, %d inputs, %.1f ms: %s%n", name,
+                engine.getScore(), replay.score, engine.getTicks(), replay.inputs.length, millis,
+                matches ? "OK" : "MISMATCH");
+        return matches;
+    }
+
+    /*  Getters */
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Get the number of ticks that the recorded game lasted.
+     * @return The number of ticks.
+     */
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * Get the score that the recorded game ended with.
+     * @return The score.
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Reads bytes and varints from a replay.
+     */
+    private static class Reader {
+
+        private byte[] data;
+        private int position = 0;
+
+        private Reader(byte[] data) {
+            this.data = data;
+        }
+
+        private int readByte() throws IOException {
+            if (position >= data.length) {
+                throw new IOException("The replay ends too early.");
+            }
+            return data[position ++];
+        }
+
+        private long readVarint() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Invalid varint in replay.");
+        }
+    }
+}
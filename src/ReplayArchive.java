@@ -0,0 +1,340 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.zip.CRC32;
+
+/**
+ * Stores many replays in one file, so that millions of games do not need millions of files. Replays are only ever added
+ * to the end of the archive.
+ *
+ * The archive is two files:
+ * - The data file: the replays, as written by ReplayRecorder, one after the other.
+ * - The index file, which has the same name as the data file plus ".idx": one entry of ENTRY_SIZE bytes per replay,
+ *   in order. Each entry has the offset of the replay in the data file (8 bytes), its size (4 bytes), its score
+ *   (4 bytes), its length in ticks (4 bytes), its seed (8 bytes) and a CRC32 of all of those (4 bytes). The id of a
+ *   game is the number of its entry.
+ *
+ * Both files are read through memory-mapped buffers, so that a game can be found by its id, and the index can be
+ * scanned, without reading the rest of the archive. A new replay is written to the data file, and forced to disk,
+ * before its entry is written to the index and forced to disk. When the archive is opened, entries at the end of the
+ * index that do not match their CRC, do not start where the previous replay ends, or end past the end of the data
+ * file are dropped, such as an entry that was only partly written when the power went out. Replays that are left
+ * without an entry are cut off the next time the archive is opened for writing.
+ */
+public class ReplayArchive implements Closeable {
+
+    //The name that is added to the data file`s name for the index file.
+    final static String INDEX_SUFFIX = ".idx";
+    //The usual extension of an archive`s data file.
+    final static String EXTENSION = ".trar";
+
+    //The size of each index entry, and where each value is inside of it.
+    final static int ENTRY_SIZE = 32;
+    final private static int OFFSET_POSITION = 0;
+    final private static int SIZE_POSITION = 8;
+    final private static int SCORE_POSITION = 12;
+    final private static int LENGTH_POSITION = 16;
+    final private static int SEED_POSITION = 20;
+    final private static int CRC_POSITION = 28;
+
+    //The data file and the index file.
+    private MappedFile data, index;
+
+    //Whether or not replays can be added.
+    private boolean readOnly;
+
+    //The number of replays in the archive, and the size of the data file that they take up.
+    private long count;
+    private long dataSize;
+
+    /**
+     * Opens an archive. If it is opened for writing, the files are created if they do not exist yet, and any replay
+     * that was not completely added is removed.
+     * @param file The data file. The index file is next to it.
+     * @param readOnly True to only read the archive, false to also add replays to it.
+     * @return The archive.
+     * @throws IOException If the files can not be opened.
+     */
+    public static ReplayArchive open(Path file, boolean readOnly) throws IOException {
+        Path indexFile = file.resolveSibling(file.getFileName() + INDEX_SUFFIX);
+        ReplayArchive archive = new ReplayArchive();
+        archive.readOnly = readOnly;
+        archive.data = new MappedFile(file, readOnly);
+        archive.index = new MappedFile(indexFile, readOnly);
+
+        //Drop the entries at the end that were not completely written, and ignore the replays that have no entry.
+        archive.count = archive.index.size() / ENTRY_SIZE;
+        while (archive.count > 0 && archive.isLastEntryValid() == false) {
+            archive.count --;
+        }
+        if (archive.count > 0) {
+            archive.dataSize = getEnd(archive.getEntry(archive.count - 1));
+        }
+        if (readOnly == false) {
+            archive.index.truncate(archive.count * ENTRY_SIZE);
+            archive.data.truncate(archive.dataSize);
+        }
+        return archive;
+    }
+
+    private ReplayArchive() {
+    }
+
+    /**
+     * Checks that the last entry in the index matches its CRC, starts where the replay before it ends, and ends inside
+     * of the data file.
+     * @return True for yes, false for no.
+     * @throws IOException If the files can not be read.
+     */
+    private boolean isLastEntryValid() throws IOException {
+        ByteBuffer entry = getEntry(count - 1);
+        if (entry.getInt(CRC_POSITION) != checksum(entry)) {
+            return false;
+        }
+        long previousEnd = 0;
+        if (count > 1) {
+            previousEnd = getEnd(getEntry(count - 2));
+        }
+        return entry.getLong(OFFSET_POSITION) == previousEnd && entry.getInt(SIZE_POSITION) >= 0
+                && getEnd(entry) <= data.size();
+    }
+
+    /**
+     * Get where the replay of an index entry ends in the data file.
+     * @param entry The entry.
+     * @return The offset just after the replay, in bytes.
+     */
+    private static long getEnd(ByteBuffer entry) {
+        return entry.getLong(OFFSET_POSITION) + entry.getInt(SIZE_POSITION);
+    }
+
+    /**
+     * Work out the CRC32 of the values in an index entry.
+     * @param entry The entry.
+     * @return The CRC32.
+     */
+    private static int checksum(ByteBuffer entry) {
+        CRC32 crc = new CRC32();
+        for (int i = 0; i < CRC_POSITION; i ++) {
+            crc.update(entry.get(i));
+        }
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Adds a replay to the end of the archive.
+     * @param replay The bytes of the replay, from ReplayRecorder.toByteArray().
+     * @return The id of the replay in this archive.
+     * @throws IOException If the data is not a valid replay, or if it can not be written.
+     */
+    public synchronized long append(byte[] replay) throws IOException {
+        if (readOnly == true) {
+            throw new IOException("The archive is read only.");
+        }
+
+        //Read the values for the index, which also checks that the replay is valid.
+        Replay parsed = Replay.read(replay);
+        if (parsed.getLength() > Integer.MAX_VALUE) {
+            throw new IOException("The replay is too long for the archive.");
+        }
+
+        data.write(ByteBuffer.wrap(replay), dataSize);
+        data.force();
+
+        ByteBuffer entry = ByteBuffer.allocate(ENTRY_SIZE);
+        entry.putLong(OFFSET_POSITION, dataSize);
+        entry.putInt(SIZE_POSITION, replay.length);
+        entry.putInt(SCORE_POSITION, parsed.getScore());
+        entry.putInt(LENGTH_POSITION, (int) parsed.getLength());
+        entry.putLong(SEED_POSITION, parsed.getSeed());
+        entry.putInt(CRC_POSITION, checksum(entry));
+        index.write(entry, count * ENTRY_SIZE);
+        index.force();
+
+        dataSize += replay.length;
+        return count ++;
+    }
+
+    /**
+     * Get the bytes of a replay, without copying them.
+     * @param id The id of the replay.
+     * @return A read only buffer that holds exactly the replay.
+     * @throws IOException If the data file can not be read.
+     */
+    public synchronized ByteBuffer getReplayBuffer(long id) throws IOException {
+        ByteBuffer entry = getEntry(id);
+        return data.get(entry.getLong(OFFSET_POSITION), entry.getInt(SIZE_POSITION));
+    }
+
+    /**
+     * Read a replay.
+     * @param id The id of the replay.
+     * @return The replay.
+     * @throws IOException If the data file can not be read, or the replay is not valid.
+     */
+    public Replay getReplay(long id) throws IOException {
+        ByteBuffer buffer = getReplayBuffer(id);
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return Replay.read(bytes);
+    }
+
+    /**
+     * Get the index entry of a replay.
+     * @param id The id of the replay.
+     * @return A read only buffer that holds exactly the entry.
+     * @throws IOException If the index file can not be read.
+     */
+    private ByteBuffer getEntry(long id) throws IOException {
+        if (id < 0 || id >= count) {
+            throw new IndexOutOfBoundsException("No replay with id " + id);
+        }
+        return index.get(id * ENTRY_SIZE, ENTRY_SIZE);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        data.close();
+        index.close();
+    }
+
+    /*  Getters */
+
+    /**
+     * Get the number of replays in the archive. Their ids are 0 to this number minus one.
+     * @return The number of replays.
+     */
+    public synchronized long size() {
+        return count;
+    }
+
+    /**
+     * Get the final score of a game, from the index.
+     * @param id The id of the replay.
+     * @return The score.
+     * @throws IOException If the index file can not be read.
+     */
+    public synchronized int getScore(long id) throws IOException {
+        return getEntry(id).getInt(SCORE_POSITION);
+    }
+
+    /**
+     * Get the number of ticks that a game lasted, from the index.
+     * @param id The id of the replay.
+     * @return The number of ticks.
+     * @throws IOException If the index file can not be read.
+     */
+    public synchronized long getLength(long id) throws IOException {
+        return getEntry(id).getInt(LENGTH_POSITION);
+    }
+
+    /**
+     * Get the seed of a game, from the index.
+     * @param id The id of the replay.
+     * @return The seed.
+     * @throws IOException If the index file can not be read.
+     */
+    public synchronized long getSeed(long id) throws IOException {
+        return getEntry(id).getLong(SEED_POSITION);
+    }
+
+    /**
+     * Get where a replay starts in the data file, from the index.
+     * @param id The id of the replay.
+     * @return The offset, in bytes.
+     * @throws IOException If the index file can not be read.
+     */
+    public synchronized long getOffset(long id) throws IOException {
+        return getEntry(id).getLong(OFFSET_POSITION);
+    }
+
+    /**
+     * A file that is read through memory-mapped buffers. A single buffer can not be larger than 2 GB, so the file is
+     * mapped in segments of SEGMENT_SIZE bytes. Each segment is mapped the first time it is read, and mapped again
+     * when it is read past the end of its old mapping, since the file grows.
+     */
+    private static class MappedFile implements Closeable {
+
+        //The size of a segment.
+        final private static long SEGMENT_SIZE = 1L << 30;
+
+        //The file.
+        private FileChannel channel;
+
+        //The mapped segments. A segment is null until it is first read.
+        private ArrayList<MappedByteBuffer> segments = new ArrayList<>();
+
+        private MappedFile(Path file, boolean readOnly) throws IOException {
+            if (readOnly == true) {
+                channel = FileChannel.open(file, StandardOpenOption.READ);
+            }
+            else {
+                channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                        StandardOpenOption.CREATE);
+            }
+        }
+
+        /**
+         * Get part of the file.
+         * @param position Where the part starts.
+         * @param length The size of the part.
+         * @return A read only buffer that holds exactly the part.
+         */
+        private ByteBuffer get(long position, int length) throws IOException {
+            int segment = (int) (position / SEGMENT_SIZE);
+            long start = segment * SEGMENT_SIZE;
+
+            //A part that crosses into the next segment is mapped by itself. This is rare.
+            if (position + length > start + SEGMENT_SIZE) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            }
+
+            while (segments.size() <= segment) {
+                segments.add(null);
+            }
+            MappedByteBuffer buffer = segments.get(segment);
+            if (buffer == null || start + buffer.capacity() < position + length) {
+                long mapSize = Math.min(SEGMENT_SIZE, channel.size() - start);
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, mapSize);
+                segments.set(segment, buffer);
+            }
+
+            ByteBuffer part = buffer.duplicate();
+            part.position((int) (position - start));
+            part.limit((int) (position - start) + length);
+            return part.slice();
+        }
+
+        private void write(ByteBuffer buffer, long position) throws IOException {
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+        }
+
+        private void force() throws IOException {
+            channel.force(false);
+        }
+
+        private long size() throws IOException {
+            return channel.size();
+        }
+
+        private void truncate(long size) throws IOException {
+            if (channel.size() > size) {
+                channel.truncate(size);
+                segments.clear();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            segments.clear();
+            channel.close();
+        }
+    }
+}
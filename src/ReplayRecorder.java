@@ -0,0 +1,117 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Records a game, so that it can be played back exactly (see Replay). Since the game is deterministic, only the seed of
+ * the Tetrominoes and the inputs need to be recorded: the same seed and the same inputs on the same ticks always give
+ * the same game.
+ *
+ * The recording is a compact binary format:
+ * - The header: the bytes 'T', 'R', 'P', 'L', the version, then the columns and rows of the game Grid as varints, then
+ *   the seed as 8 bytes.
+ * - One varint per input: the number of ticks since the previous input, shifted left by 3 bits, combined with the
+ *   ordinal of the input. Ticks without an input (NONE) are not recorded.
+ * - The end: a varint with the number of ticks since the last input and an ordinal of 0 (NONE), followed by the
+ *   final score as a varint, so that a playback can be checked.
+ *
+ * A varint stores 7 bits per byte, lowest first, with the top bit set on every byte except the last. Inputs are rarely
+ * more than a few seconds apart, so most take one or two bytes, and a typical game takes a few kilobytes.
+ */
+public class ReplayRecorder {
+
+    //The first bytes of every replay, and the version of the format.
+    final static byte[] MAGIC = {'T', 'R', 'P', 'L'};
+    final static int VERSION = 1;
+
+    //The number of bits used for the input in each event.
+    final static int INPUT_BITS = 3;
+
+    static {
+        if (GameEngine.Input.values().length > (1 << INPUT_BITS)) {
+            throw new IllegalStateException("Too many inputs for the replay format.");
+        }
+    }
+
+    //The recording so far.
+    private ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    //The tick of the last input that was recorded.
+    private long lastTick = 0;
+
+    //Whether or not the end has been recorded.
+    private boolean finished = false;
+
+    /**
+     * Constructor. Starts a recording.
+     * @param seed The seed of the game`s BagPieceGenerator.
+     * @param columns The number of columns of the game Grid.
+     * @param rows The number of rows of the game Grid.
+     */
+    public ReplayRecorder(long seed, int columns, int rows) {
+        out.write(MAGIC, 0, MAGIC.length);
+        out.write(VERSION);
+        writeVarint(out, columns);
+        writeVarint(out, rows);
+        for (int i = 7; i >= 0; i --) {
+            out.write((int) (seed >>> (i * 8)));
+        }
+    }
+
+    /**
+     * Record an input. Must be called with the tick that the input is given on, before the engine steps.
+     * @param tick The tick, from GameEngine.getTicks(). Never less than the tick of the previous input.
+     * @param input The input. NONE is not recorded.
+     */
+    public void record(long tick, GameEngine.Input input) {
+        if (input == GameEngine.Input.NONE || finished == true) {
+            return;
+        }
+        writeVarint(out, ((tick - lastTick) << INPUT_BITS) | input.ordinal());
+        lastTick = tick;
+    }
+
+    /**
+     * Record the end of the game. Nothing more can be recorded afterwards.
+     * @param ticks The number of ticks that the game lasted, from GameEngine.getTicks().
+     * @param score The final score.
+     */
+    public void finish(long ticks, int score) {
+        if (finished == true) {
+            return;
+        }
+        writeVarint(out, (ticks - lastTick) << INPUT_BITS);
+        writeVarint(out, score);
+        finished = true;
+    }
+
+    /**
+     * Get the recording.
+     * @return The bytes of the recording.
+     */
+    public byte[] toByteArray() {
+        return out.toByteArray();
+    }
+
+    /**
+     * Save the recording to a file.
+     * @param file The file.
+     */
+    public void save(Path file) throws IOException {
+        Files.write(file, toByteArray());
+    }
+
+    /**
+     * Write a number as a varint.
+     * @param out Where to write.
+     * @param value The number. Must not be negative.
+     */
+    static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+}
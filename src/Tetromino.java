@@ -1,7 +1,6 @@
 import java.awt.*;
 import java.awt.event.MouseEvent;
 import java.util.ArrayList;
-import java.util.Random;
 
 /**
  * This class represents a Tetromino. A Tetromino is a game piece that the user can control.
@@ -32,7 +31,17 @@ public class Tetromino {
     final private static int SIZE = 4;
 
     //The origin around which to rotate.
-    private Point origin;
+    private int originX, originY;
+
+    //The shape of the Tetromino (see TetrominoShape), and the number of times it has been rotated counter-clockwise.
+    private int shape;
+    private int rotation;
+
+    //The drop distance last calculated for the ghost piece, and the position and Board it was calculated for. It only
+    //needs to be calculated again once the Tetromino moves or rotates, or the Board changes.
+    private int ghostDistance = -1;
+    private int ghostOriginX, ghostOriginY, ghostRotation, ghostChangeCount;
+    private Board ghostBoard = null;
 
     //Whether or not the Tetromino has been generated yet.
     private boolean generated = false;
@@ -53,166 +62,41 @@ public class Tetromino {
     }
 
     /**
-     * Creates a random new Tetromino with a random shape, a random colour, and a random orientation.
+     * Creates a new Tetromino, with the shape and colour chosen by the generator.
+     * @param generator The generator that decides which Tetromino comes next.
      */
-    public void generateNewPiece() {
-
-        Random random = new Random();
-
-        //First, generate a random colour.
-        colour = chooseRandomColour(random);
-
-        //Secondly, generate a random shape, based on number.
-        int gen = random.nextInt(7);
-
-        //TEST
-//        gen = 3;
-
-        /*
-        There are 7 types of blocks that can be generated, shown below. Let 0 represent empty space and 1
-        represent a block.
-
-        I Piece
-        0100
-        0100
-        0100
-        0100
-
-        J Piece
-        0010
-        0010
-        0110
-        0000
-
-        L Piece
-        0100
-        0100
-        0110
-        0000
-
-        O Piece
-        0000
-        0110
-        0110
-        0000
-
-        S piece
-        0000
-        0011
-        0110
-        0000
+    public void generateNewPiece(PieceGenerator generator) {
 
-        Z piece
-        0000
-        0110
-        0011
-        0000
+        //The shapes are described in TetrominoShape.
+        int shape = generator.nextShape();
+        Color colour = generator.nextColour();
 
-        T piece
-        0000
-        0111
-        0010
-        0000
-         */
-
-        //Create shapes based on the generated number.
+        //Specify the origin around which to rotate.
+        createPiece(shape, colour, 0, TetrominoShape.getSpawnOriginX(shape), TetrominoShape.getSpawnOriginY(shape));
+    }
 
-        //I Piece.
-        if (gen == 0) {
-            Block block = new Block(1,0,colour);
-            gamePieceBlocks.add(block);
-            block = new Block(1,1,colour);
-            gamePieceBlocks.add(block);
-            block = new Block(1,2,colour);
-            gamePieceBlocks.add(block);
-            block = new Block(1,3,colour);
-            gamePieceBlocks.add(block);
-            //Specify the origin around which to rotate.
-            origin = new Point(1, 1);
-        }
-        //J Piece.
-        else if (gen == 1) {
-            Block block = new Block(2,0,colour);
-            gamePieceBlocks.add(block);
-            block = new Block(2,1,colour);
-            gamePieceBlocks.add(block);
-            block = new Block(2,2,colour);
-            gamePieceBlocks.add(block);
-            block = new Block(1,2,colour);
-            gamePieceBlocks.add(block);
-            //Specify the origin around which to rotate.
-            origin = new Point(2, 1);
-        }
-        //L Piece.
-        else if (gen == 2) {
-            Block block = new Block(1,0,colour);
-            gamePieceBlocks.add(block);
-            block = new Block(1,1,colour);
-            gamePieceBlocks.add(block);
-            block = new Block(1,2,colour);
-            gamePieceBlocks.add(block);
-            block = new Block(2,2,colour);
-            gamePieceBlocks.add(block);
-            //Specify the origin around which to rotate.
-            origin = new Point(1, 1);
-        }
-        //O Piece.
-        else if (gen == 3) {
-            Block block = new Block(1,0,colour);
-            gamePieceBlocks.add(block);
-            block = new Block(2,0,colour);
-            gamePieceBlocks.add(block);
-            block = new Block(1,1,colour);
-            gamePieceBlocks.add(block);
-            block = new Block(2,1,colour);
-            gamePieceBlocks.add(block);
-            //Specify the origin around which to rotate.
-            origin = new Point(1, 0);
-        }
-        //S Piece.
-        else if (gen == 4) {
-            Block block = new Block(3,0,colour);
-            gamePieceBlocks.add(block);
-            block = new Block(2,0,colour);
-            gamePieceBlocks.add(block);
-            block = new Block(2,1,colour);
-            gamePieceBlocks.add(block);
-            block = new Block(1,1,colour);
-            gamePieceBlocks.add(block);
-            //Specify the origin around which to rotate.
-            origin = new Point(2, 0);
-        }
-        //Z Piece.
-        else if (gen == 5) {
-            Block block = new Block(1,0,colour);
-            gamePieceBlocks.add(block);
-            block = new Block(2,0,colour);
-            gamePieceBlocks.add(block);
-            block = new Block(2,1,colour);
-            gamePieceBlocks.add(block);
-            block = new Block(3,1,colour);
-            gamePieceBlocks.add(block);
-            //Specify the origin around which to rotate.
-            origin = new Point(2, 1);
-        }
-        //T Piece.
-        else if (gen == 6) {
-            Block block = new Block(1,0,colour);
-            gamePieceBlocks.add(block);
-            block = new Block(2,0,colour);
-            gamePieceBlocks.add(block);
-            block = new Block(3,0,colour);
-            gamePieceBlocks.add(block);
-            block = new Block(2,1,colour);
+    /**
+     * Creates a new Tetromino with the specified shape and colour, in the specified position. Used to put a Tetromino
+     * back where it was, such as when a saved game is restored.
+     * @param shape The shape (see TetrominoShape).
+     * @param colour The colour.
+     * @param rotation The number of times it has been rotated counter-clockwise, from 0 to 3.
+     * @param originX The column of the origin around which it rotates.
+     * @param originY The row of the origin around which it rotates.
+     */
+    public void createPiece(int shape, Color colour, int rotation, int originX, int originY) {
+
+        this.shape = shape;
+        this.colour = colour;
+        this.rotation = rotation;
+        this.originX = originX;
+        this.originY = originY;
+
+        //Create the blocks of the shape around the origin.
+        for (int i = 0; i < TetrominoShape.BLOCK_COUNT; i ++) {
+            Block block = new Block(originX + TetrominoShape.getOffsetX(shape, rotation, i),
+                    originY + TetrominoShape.getOffsetY(shape, rotation, i), colour);
             gamePieceBlocks.add(block);
-            //Specify the origin around which to rotate.
-            origin = new Point(2, 0);
-        }
-
-        //Rotate randomly.
-        gen = random.nextInt(4);
-        for (int i = 0; i < gen; i ++) {
-            rotate();
         }
 
         //Add this Tetromino to the Grid to be drawn.
@@ -221,41 +105,6 @@ public class Tetromino {
         generated = true;
     }
 
-    /**
-     * Choose a random colour.
-     * @return A random colour.
-     */
-    private Color chooseRandomColour(Random random) {
-
-        //Generate a random number. Get the colour based off of that.
-        int gen = random.nextInt(8);
-
-        if (gen == 0) {
-            return Color.BLUE;
-        }
-        else if (gen == 1) {
-            return Color.RED;
-        }
-        else if (gen == 2) {
-            return Color.CYAN;
-        }
-        else if (gen == 3) {
-            return Color.GREEN;
-        }
-        else if (gen == 4) {
-            return Color.YELLOW;
-        }
-        else if (gen == 5) {
-            return Color.ORANGE;
-        }
-        else if (gen == 6) {
-            return Color.GRAY;
-        }
-        else {
-            return Color.PINK;
-        }
-    }
-
     /**
      * Rotates the Tetromino 90 degrees counter-clockwise, if the Tetromino has been generated.
      */
@@ -265,226 +114,151 @@ public class Tetromino {
         if (generated) {
 
             /*
-            There are many potential problems that would prevent a Tetromino from being rotated. First of all,
-            the Tetromino may collide with other blocks. If it is not possible to rotate, prevent it from doing so. Do this
-            by creating a copy of all the blocks in the Tetromino, and then applying a rotation to them. Finally, check to
-            if the rotation results in any overlaps/collisions with other blocks. If no, it is safe to rotate.
+            The position of every block after rotating is looked up from TetrominoShape, relative to the origin. This
+            way, the rotation can be checked for problems before any of the blocks are moved. First of all, the
+            Tetromino may be outside of the Grid after rotating: if so, shift it back inside. Then, it may collide with
+            other blocks: if so, see if shifting it left or right avoids the collision. If nothing works, it is not
+            possible to rotate, so leave the Tetromino where it is.
              */
-
-            //Get copy.
-            ArrayList<Block> tempBlocks = copyBlocks(gamePieceBlocks);
-            //Attempt to rotate these blocks.
-            boolean success = attemptRotate(tempBlocks,false);
-
-            //Successful; actually rotate now.
-            if (success == true) {
-                attemptRotate(gamePieceBlocks,true);
+            int newRotation = (rotation + 1) % TetrominoShape.ROTATION_COUNT;
+
+            //Find how far the rotated blocks would extend from the origin.
+            int minX = 0, maxX = 0, maxY = 0;
+            for (int i = 0; i < TetrominoShape.BLOCK_COUNT; i ++) {
+                minX = Math.min(minX, TetrominoShape.getOffsetX(shape, newRotation, i));
+                maxX = Math.max(maxX, TetrominoShape.getOffsetX(shape, newRotation, i));
+                maxY = Math.max(maxY, TetrominoShape.getOffsetY(shape, newRotation, i));
             }
-        }
-    }
-
-    /**
-     * Rotates the blocks.
-     * @param blocks The blocks to rotate.
-     * @param updateOrigin Whether or not to update the origin after rotation. Origin may need to be updated when
-     * Tetromino is out of bounds and is shifted to compensate after rotation.
-     * @return True if rotation successful, false if rotation resulted in overlaps.
-     */
-    private boolean attemptRotate(ArrayList<Block> blocks, boolean updateOrigin) {
-
-        /*
-        System.out.println(originX);
-        int offsetX = -((int) originX);
-        int offsetY = -((int) originY);
-
-        for (Block block : blocks) {
-
-            int oldX = block.getX() + offsetX;
-            int oldY = block.getY() + offsetY;
-            System.out.println("old x " + oldX);
-            //New x position is equal to the old y position.
-            int newX = oldY - 0 - (int)offsetX;
-            //The new y depends on the oldX.
-            int newY = oldX - (int)offsetY;
-
-            System.out.println("new y " + newY);
-            //Update the blocks` position.rotatedCoordinates[i].x += origin.x;
-        rotatedCoordinates[i].y += origin.y;
-            block.setX(newX);
-            block.setY(newY);
-        }*/
-
-
-        /*
-        Problem: it is not possible to simply rotate the Tetromino based solely on it's block`s positions on the grid,
-        as doing so would also shift the Tetromino. Therefore, in order to solve this, rotation must be done around
-        an origin, which must be centered in the Tetromino. The origin must be at (0, 0) in order to rotate properly.
-        Therefore, each of the blocks must be translated in relation with the origin. The Tetromino must be translated
-        so that the origin is moved to (0, 0).
-         */
-
-        //Loop through all the blocks in the Tetromino.
-        for (Block block : blocks) {
-
-            //The origin needs to be at (0, 0). Translate the block`s coordinates so that it is in relation to the
-            //origin.
-            Point translatedCoordinate = new Point(block.getX() - (int) origin.getX(), block.getY() - (int) origin.getY());
-
-            //Multiply be -1 because y values increase as you go down vertically, instead of increasing as you go up.
-            translatedCoordinate.y *= -1;
-
-            //Copy the coordinates so that calculations can be done with them.
-            Point rotatedCoordinates = (Point) translatedCoordinate.clone();
-
-            /*
-            To rotate counter clockwise, the formula is:
-            New x coordinate = (Xcosθ) - (Ysinθ), where x and y are the distances from the origin, and θ is the angle
-            in which to rotate.
-            New y coordinate = (Xsinθ) - (Ycosθ), where x and y are the distances from the origin, and θ is the angle
-            in which to rotate.
-            θ is the angle in which to rotate, in radians. Since we are rotating 90 degrees counter clockwise, θ is
-            equal to (Math.PI/2).
-             */
-            rotatedCoordinates.x = (int)Math.round(translatedCoordinate.x * Math.cos(Math.PI/2) - translatedCoordinate.y
-                    * Math.sin(Math.PI/2));
-            rotatedCoordinates.y = (int)Math.round(translatedCoordinate.x * Math.sin(Math.PI/2) + translatedCoordinate.y
-                    * Math.cos(Math.PI/2));
-
-            //Flip the y values again.
-            rotatedCoordinates.y *= -1;
-
-            //Move back to original position before translation.
-            rotatedCoordinates.x += origin.getX();
-            rotatedCoordinates.y += origin.getY();
-
-            //Set new coordinates.
-            block.setX(rotatedCoordinates.x);
-            block.setY(rotatedCoordinates.y);
-        }
-
 
-        /*
-        Now, make sure that it stays within the boundaries. If it is specified that the origin is not to be updated,
-        make a copy of the origin and revert it after calling keepWithinGrid. This is because keepWithinGrid may
-        change the origin.
-         */
-        if (updateOrigin == false) {
-            Point originClone = (Point) origin.clone();
-            keepWithinGrid(blocks);
-            origin = originClone;
-        }
-        else {
-            keepWithinGrid(blocks);
-        }
-
-        //Tetromino has collided with a stationary block. See if it is possible to shift left or right to avoid
-        // collision.
-        /*if (hasCollided(blocks)) {
-            for (int i = 0; i < MAX_SHIFT_DISTANCE; i ++) {
-                //If the origin is not to be changed.
-                if (updateOrigin == false) {
-                    //Prevent origin from changing, since it is specified not to change.
-                    Point temp = (Point) origin.clone();
-                    //Shift right. Do not check if it is possible, just do it.
-                    shiftRight(blocks);
-                    origin = temp;
-                }
-                else {
-                    shiftRight(blocks);
-                }
-                if (hasCollided(blocks) == false) {
-                    return true;
-                }
+            //Keep the rotated Tetromino within the Grid. Note that the top is not considered to be a boundary.
+            int newOriginX = originX;
+            int newOriginY = originY;
+            if (newOriginX + minX < 0) {
+                newOriginX = -minX;
             }
-            if (hasCollided(blocks)) {
-                for (int i = 0; i < 4; i ++) {
-                    //If the origin is not to be changed.
-                    if (updateOrigin == false) {
-                        //Prevent origin from changing, since it is specified not to change.
-                        Point temp = (Point) origin.clone();
-                        shiftLeft(blocks);
-                        origin = temp;
-                    }
-                    else {
-                        shiftLeft(blocks);
+            else if (newOriginX + maxX > grid.getColumns() - 1) {
+                newOriginX = grid.getColumns() - 1 - maxX;
+            }
+            if (newOriginY + maxY > grid.getRows() - 1) {
+                newOriginY = grid.getRows() - 1 - maxY;
+            }
+
+            //Tetromino has collided with a stationary block. See if it is possible to shift left or right to avoid
+            // collision.
+            if (hasCollided(newRotation, newOriginX, newOriginY)) {
+
+                /*
+                The goal is to find the least amount of shifts needed to make the Tetromino not collide with anything.
+                In order to do this, first test with one shift for right and left sides. If that fails, test with two
+                shifts, and so on.
+                 */
+                boolean shifted = false;
+                for (int shiftAmount = 1; shiftAmount <= MAX_SHIFT_DISTANCE && shifted == false; shiftAmount ++) {
+                    //Shift right by shift amount.
+                    if (hasCollided(newRotation, newOriginX + shiftAmount, newOriginY) == false) {
+                        newOriginX += shiftAmount;
+                        shifted = true;
                     }
-                    if (hasCollided(blocks) == false) {
-                        return true;
+                    //Shift left by shift amount.
+                    else if (hasCollided(newRotation, newOriginX - shiftAmount, newOriginY) == false) {
+                        newOriginX -= shiftAmount;
+                        shifted = true;
                     }
                 }
-            }
-        }*/
-
-        //Tetromino has collided with a stationary block. See if it is possible to shift left or right to avoid
-        // collision.
-        if (hasCollided(blocks)) {
-            Point temp = (Point) origin.clone();
 
-
-            /*
-            The goal is to find the least amount of shifts needed to make the Tetromino not collide with anything.
-            In order to do this, first test with one shift for left and right sides. If that fails, test with two
-            shifts, and so on.
-             */
-            for (int shiftAmount = 1; shiftAmount <= MAX_SHIFT_DISTANCE; shiftAmount ++) {
-                //Shift right by shift amount.
-                for (int i = 0; i < shiftAmount; i ++) {
-                    shiftRight(blocks);
-                }
-                //No collision: it is able to shift here.
-                if (hasCollided(blocks) == false) {
-                    return true;
-                }
-                //Shift twice amount of distance to the left, to cancel out shift to the right.
-                for (int i = 0; i < shiftAmount*2; i ++) {
-                    shiftLeft(blocks);
-                }
-                //No collision: it is able to shift here.
-                if (hasCollided(blocks) == false) {
-                    return true;
+                //Still has collision, so rotation not possible.
+                if (shifted == false) {
+                    return;
                 }
             }
 
-            //Revert origin if it is specified that origin is not to be modified. shiftLeft() and shiftRight() may
-            //have modified origin.
-            if (updateOrigin == false) {
-                origin = temp;
+            //Successful; actually rotate now.
+            rotation = newRotation;
+            originX = newOriginX;
+            originY = newOriginY;
+            for (int i = 0; i < TetrominoShape.BLOCK_COUNT; i ++) {
+                Block block = gamePieceBlocks.get(i);
+                block.setX(originX + TetrominoShape.getOffsetX(shape, rotation, i));
+                block.setY(originY + TetrominoShape.getOffsetY(shape, rotation, i));
             }
         }
-        //Still has collision, so rotation not possible.
-        if (hasCollided(blocks)) {
-            return false;
-        }
-        return true;
     }
 
     /**
-     * Check to see if list of blocks has collided with any stationary blocks.
-     * @param blocks The blocks to check against the stationary blocks.
+     * Check to see if the Tetromino would collide with any stationary blocks, or go outside of the sides or the bottom
+     * of the Grid, if it had the specified rotation and origin.
+     * @param rotation The number of times the Tetromino has been rotated counter-clockwise.
+     * @param originX The column of the origin.
+     * @param originY The row of the origin.
      * @return True for yes, false for no.
      */
-    private boolean hasCollided(ArrayList<Block> blocks) {
-        for (Block gamePieceBlock : blocks) {
-            //Check with stationary blocks.
-            for (Block stationaryBlock : gridBlocks) {
-                if (stationaryBlock.isPartOfGamePiece() == false) {
-
-//                    System.out.println(gamePieceBlock.getX()+" "+stationaryBlock.getX()+" "+gamePieceBlock.getY()+" "+stationaryBlock.getY());
-                    if (gamePieceBlock.getY() == stationaryBlock.getY() && gamePieceBlock.getX() == stationaryBlock.getX()) {
-                        return true;
-                    }
-                }
+    private boolean hasCollided(int rotation, int originX, int originY) {
+        for (int i = 0; i < TetrominoShape.BLOCK_COUNT; i ++) {
+            int x = originX + TetrominoShape.getOffsetX(shape, rotation, i);
+            int y = originY + TetrominoShape.getOffsetY(shape, rotation, i);
+
+            //Check boundaries.
+            if (x < 0 || x > grid.getColumns() - 1 || y > grid.getRows() - 1) {
+                return true;
+            }
+            //Check with stationary blocks. Looks up a single cell, instead of going through every block.
+            if (grid.isOccupied(x, y)) {
+                return true;
             }
         }
         return false;
     }
 
- /*   public void dropToBottom() {
-        boolean keepDropping = true;
-        while (keepDropping == true) {
-            keepDropping = moveDown();
+    /**
+     * Calculates how many rows the Tetromino can drop before it lands. Uses the top of each column that the Tetromino
+     * is above, so it does not need to move the Tetromino down one row at a time. The same as calling moveDown() until
+     * it fails: a block that is already below the top of its column (under an overhang) can not drop at all.
+     * @return The number of rows.
+     */
+    public int getDropDistance() {
+        int distance = Integer.MAX_VALUE;
+        for (int i = 0; i < TetrominoShape.BLOCK_COUNT; i ++) {
+            int x = originX + TetrominoShape.getOffsetX(shape, rotation, i);
+            int y = originY + TetrominoShape.getOffsetY(shape, rotation, i);
+
+            //The block lands on the top of the column, or the bottom of the Grid if the column is empty.
+            int landingY = Math.min(grid.getColumnTop(x), grid.getRows()) - 1;
+            distance = Math.min(distance, landingY - y);
         }
-    }*/
+        return Math.max(0, distance);
+    }
+
+    /**
+     * Calculates how many rows the Tetromino can drop before it lands, for drawing the ghost piece. This is called
+     * every time the Grid is drawn, so the result is kept, and only calculated again when the Tetromino has moved or
+     * rotated, or the stationary blocks have changed.
+     * @return The number of rows.
+     */
+    public int getGhostDistance() {
+        Board board = grid.getBoard();
+        if (ghostDistance == -1 || ghostOriginX != originX || ghostOriginY != originY || ghostRotation != rotation
+                || ghostBoard != board || ghostChangeCount != board.getChangeCount()) {
+            ghostDistance = getDropDistance();
+            ghostOriginX = originX;
+            ghostOriginY = originY;
+            ghostRotation = rotation;
+            ghostBoard = board;
+            ghostChangeCount = board.getChangeCount();
+        }
+        return ghostDistance;
+    }
+
+    /**
+     * Moves the Tetromino straight down to the row where it will land, in a single step.
+     */
+    public void dropToBottom() {
+        int distance = getDropDistance();
+        for (Block block : gamePieceBlocks) {
+            block.setY(block.getY() + distance);
+        }
+        //Shift origin too.
+        originY += distance;
+    }
 
     /**
      * Keeps the Tetromino within bounds.
@@ -529,7 +303,7 @@ public class Tetromino {
         //Only move if the mouse is inside of the Grid.
         if (getGrid().isMouseInsideGrid(e) == true) {
             //Convert mouse location to a coordinate on the Grid.
-            int newX = getMousePosition(e);
+            int newX = getGrid().getMouseColumn(e);
             //Move Tetromino horizontally to the specified position, if it is not out of bounds.
             if (newX != -1) {
                 shiftToPosition(newX);
@@ -537,29 +311,6 @@ public class Tetromino {
         }
     }
 
-    /**
-     * Calculates what column on the Grid the mouse currently occupies. Takes the Grid`s position in the window into
-     * account. If the mouse is out of bounds, -1 will be returned.
-     * @param e The mouse event.
-     * @return The column that the mouse is in. If mouse is out of bounds, -1 is returned.
-     */
-    private int getMousePosition(MouseEvent e) {
-
-        //The mouse`s 'real' location on the Grid, after adjusting for the Grid`s position in the Window.
-        int realX = e.getX() - getGrid().getX();
-
-        //Get the column of the Grid that the mouse occupies.
-        int column = (int) Math.floor(realX / getGrid().getCellSize());
-
-        //Out of bounds.
-        if (column < 0 || column > getGrid().getColumns() - 1) {
-            return -1;
-        }
-        else {
-            return column;
-        }
-    }
-
     /**
      * Moves the origin horizontally to the specified position. Translate the blocks accordingly to stay with the
      * origin.
@@ -567,7 +318,7 @@ public class Tetromino {
      */
     private void shiftToPosition(int newX) {
         //Calculate how to move.
-        int move = (int) (newX - origin.getX());
+        int move = newX - originX;
         for (int i = 0; i < (Math.abs(move)); i ++) {
             //Move left.
             if (move < 0) {
@@ -630,7 +381,7 @@ public class Tetromino {
             block.setY(newY);
         }
         //Shift origin too.
-        origin.y ++;
+        originY ++;
     }
 
     /**
@@ -643,7 +394,7 @@ public class Tetromino {
             block.setY(newY);
         }
         //Shift origin too.
-        origin.y --;
+        originY --;
     }
 
     /**
@@ -656,7 +407,7 @@ public class Tetromino {
             block.setX(newX);
         }
         //Shift origin too.
-        origin.x --;
+        originX --;
     }
 
     /**
@@ -669,26 +420,27 @@ public class Tetromino {
             block.setX(newX);
         }
         //Shift origin too.
-        origin.x ++;
+        originX ++;
     }
 
     /**
-     * Determines whether or not the Tetromino can shift down.
+     * Determines whether or not the Tetromino can shift down. A block can not go below the top of its column, even if
+     * the cell under it is empty, so a Tetromino can not slide under an overhang. Only needs the top of each column,
+     * instead of going through every block.
      * @return True for yes, false for no.
      */
     private boolean canShiftDown() {
-        for (Block gamePieceBlock : gamePieceBlocks) {
+        for (int i = 0; i < TetrominoShape.BLOCK_COUNT; i ++) {
+            int x = originX + TetrominoShape.getOffsetX(shape, rotation, i);
+            int y = originY + TetrominoShape.getOffsetY(shape, rotation, i);
+
             //Check boundary.
-            if (gamePieceBlock.getY() >= grid.getRows() - 1) {
+            if (y >= grid.getRows() - 1) {
                 return false;
             }
-            //Check with stationary blocks.
-            for (Block stationaryBlock : gridBlocks) {
-                if (stationaryBlock.isPartOfGamePiece() == false) {
-                    if (gamePieceBlock.getY() + 1 >= stationaryBlock.getY() && gamePieceBlock.getX() == stationaryBlock.getX()) {
-                        return false;
-                    }
-                }
+            //Check with the highest stationary block in the column.
+            if (y + 1 >= grid.getColumnTop(x)) {
+                return false;
             }
         }
         return true;
@@ -699,21 +451,7 @@ public class Tetromino {
      * @return True for yes, false for no.
      */
     private boolean canShiftLeft() {
-        for (Block gamePieceBlock : gamePieceBlocks) {
-            //Check boundary.
-            if (gamePieceBlock.getX() -1 < 0) {
-                return false;
-            }
-            //Check with finsihed bocks
-            for (Block stationaryBlock : gridBlocks) {
-                if (stationaryBlock.isPartOfGamePiece() == false) {
-                    if (gamePieceBlock.getX() - 1 == stationaryBlock.getX() && gamePieceBlock.getY() == stationaryBlock.getY()) {
-                        return false;
-                    }
-                }
-            }
-        }
-        return true;
+        return hasCollided(rotation, originX - 1, originY) == false;
     }
 
     /**
@@ -721,21 +459,7 @@ public class Tetromino {
      * @return True for yes, false for no.
      */
     private boolean canShiftRight() {
-        for (Block gamePieceBlock : gamePieceBlocks) {
-            //Check boundary.
-            if (gamePieceBlock.getX() + 1 > grid.getColumns()-1) {
-                return false;
-            }
-            //Check with finsihed bocks
-            for (Block stationaryBlock : gridBlocks) {
-                if (stationaryBlock.isPartOfGamePiece() == false) {
-                    if (gamePieceBlock.getX() + 1 == stationaryBlock.getX() && gamePieceBlock.getY() == stationaryBlock.getY()) {
-                        return false;
-                    }
-                }
-            }
-        }
-        return true;
+        return hasCollided(rotation, originX + 1, originY) == false;
     }
 
     /**
@@ -771,32 +495,55 @@ public class Tetromino {
      */
     public void releaseBlocks() {
         for (Block block : gamePieceBlocks) {
-            block.setPartOfGamePiece(false);
+            grid.releaseBlock(block);
         }
     }
 
+    /*  Getters and setters */
+
+    public Grid getGrid() {
+        return grid;
+    }
+
     /**
-     * Make a 'deep copy' of the blocks. The new blocks will be completely different objects with the same value: it
-     * is not copying the reference.
-     * @param blocks The blocks to copy.
-     * @return The new copy.
+     * Gets the column of the origin around which the Tetromino rotates. Moving the Tetromino to the mouse lines this
+     * column up with the mouse.
+     * @return The column.
      */
-    private ArrayList<Block> copyBlocks(ArrayList<Block> blocks) {
-        ArrayList<Block> copiedBlocks = new ArrayList<>(blocks.size());
-        for (Block block : blocks) {
-            //Copy block. Cant clone, cause thats just gonna return a reference to same object.
-            Block newBlock = new Block(block.getX(),block.getY(),block.getColour());
-            newBlock.setPartOfGamePiece(block.isPartOfGamePiece());
-            copiedBlocks.add(newBlock);
-        }
+    public int getOriginX() {
+        return originX;
+    }
 
-        return copiedBlocks;
+    /**
+     * Gets the row of the origin around which the Tetromino rotates.
+     * @return The row. Negative while the Tetromino is above the Grid.
+     */
+    public int getOriginY() {
+        return originY;
     }
 
-    /*  Getters and setters */
+    /**
+     * Gets the colour of the Tetromino.
+     * @return The colour.
+     */
+    public Color getColour() {
+        return colour;
+    }
 
-    public Grid getGrid() {
-        return grid;
+    /**
+     * Gets the shape of the Tetromino.
+     * @return The shape (see TetrominoShape).
+     */
+    public int getShape() {
+        return shape;
+    }
+
+    /**
+     * Gets the number of times the Tetromino has been rotated counter-clockwise since it was created.
+     * @return The rotation, from 0 to 3.
+     */
+    public int getRotation() {
+        return rotation;
     }
 
     /**
@@ -0,0 +1,114 @@
+/**
+ * This class holds the shapes of the 7 types of Tetrominoes, in every orientation. The position of each block is
+ * stored as an offset from the origin around which the Tetromino rotates. All of the rotations are calculated once,
+ * when the class is loaded, so rotating a Tetromino only needs to look up the new offsets.
+ *
+ * The shapes are described below, inside of the 4 by 4 grid that each Tetromino starts in. Let 0 represent empty
+ * space, 1 represent a block, and O represent a block that is also the origin.
+ *
+ *  I Piece    J Piece    L Piece    O Piece    S Piece    Z Piece    T Piece
+ *  0100       0010       0100       0O10       00O1       0110       01O1
+ *  0O00       00O0       0O00       0110       0110       00O1       0010
+ *  0100       0110       0110       0000       0000       0000       0000
+ *  0100       0000       0000       0000       0000       0000       0000
+ */
+public class TetrominoShape {
+
+    //The number of shapes.
+    final public static int SHAPE_COUNT = 7;
+    //The number of orientations of each shape.
+    final public static int ROTATION_COUNT = 4;
+    //The number of blocks in each shape.
+    final public static int BLOCK_COUNT = 4;
+
+    //The shapes.
+    final public static int I = 0;
+    final public static int J = 1;
+    final public static int L = 2;
+    final public static int O = 3;
+    final public static int S = 4;
+    final public static int Z = 5;
+    final public static int T = 6;
+
+    //The position of each block in the 4 by 4 grid when the Tetromino is created, as {x, y} pairs.
+    final private static int[][][] SPAWN_BLOCKS = {
+            {{1, 0}, {1, 1}, {1, 2}, {1, 3}},
+            {{2, 0}, {2, 1}, {2, 2}, {1, 2}},
+            {{1, 0}, {1, 1}, {1, 2}, {2, 2}},
+            {{1, 0}, {2, 0}, {1, 1}, {2, 1}},
+            {{3, 0}, {2, 0}, {2, 1}, {1, 1}},
+            {{1, 0}, {2, 0}, {2, 1}, {3, 1}},
+            {{1, 0}, {2, 0}, {3, 0}, {2, 1}}
+    };
+
+    //The position of the origin in the 4 by 4 grid when the Tetromino is created, as {x, y}.
+    final private static int[][] SPAWN_ORIGINS = {{1, 1}, {2, 1}, {1, 1}, {1, 0}, {2, 0}, {2, 1}, {2, 0}};
+
+    //The offsets of each block from the origin, indexed by [shape][rotation][block].
+    final private static int[][][] OFFSETS_X = new int[SHAPE_COUNT][ROTATION_COUNT][BLOCK_COUNT];
+    final private static int[][][] OFFSETS_Y = new int[SHAPE_COUNT][ROTATION_COUNT][BLOCK_COUNT];
+
+    static {
+        for (int shape = 0; shape < SHAPE_COUNT; shape ++) {
+            for (int block = 0; block < BLOCK_COUNT; block ++) {
+                int offsetX = SPAWN_BLOCKS[shape][block][0] - SPAWN_ORIGINS[shape][0];
+                int offsetY = SPAWN_BLOCKS[shape][block][1] - SPAWN_ORIGINS[shape][1];
+
+                for (int rotation = 0; rotation < ROTATION_COUNT; rotation ++) {
+                    OFFSETS_X[shape][rotation][block] = offsetX;
+                    OFFSETS_Y[shape][rotation][block] = offsetY;
+
+                    /*
+                    Rotate 90 degrees counter-clockwise around the origin. Normally, that turns (x, y) into (-y, x).
+                    However, y values increase as you go down the Grid instead of up, so (x, y) turns into (y, -x)
+                    instead.
+                     */
+                    int rotatedX = offsetY;
+                    int rotatedY = -offsetX;
+                    offsetX = rotatedX;
+                    offsetY = rotatedY;
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the horizontal offset of a block from the origin.
+     * @param shape The shape.
+     * @param rotation The number of times the shape has been rotated counter-clockwise, from 0 to 3.
+     * @param block The block, from 0 to 3.
+     * @return The offset, in cells.
+     */
+    public static int getOffsetX(int shape, int rotation, int block) {
+        return OFFSETS_X[shape][rotation][block];
+    }
+
+    /**
+     * Get the vertical offset of a block from the origin.
+     * @param shape The shape.
+     * @param rotation The number of times the shape has been rotated counter-clockwise, from 0 to 3.
+     * @param block The block, from 0 to 3.
+     * @return The offset, in cells.
+     */
+    public static int getOffsetY(int shape, int rotation, int block) {
+        return OFFSETS_Y[shape][rotation][block];
+    }
+
+    /**
+     * Get the column of the origin in the 4 by 4 grid when a Tetromino is created.
+     * @param shape The shape.
+     * @return The column.
+     */
+    public static int getSpawnOriginX(int shape) {
+        return SPAWN_ORIGINS[shape][0];
+    }
+
+    /**
+     * Get the row of the origin in the 4 by 4 grid when a Tetromino is created.
+     * @param shape The shape.
+     * @return The row.
+     */
+    public static int getSpawnOriginY(int shape) {
+        return SPAWN_ORIGINS[shape][1];
+    }
+}
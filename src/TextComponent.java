@@ -153,6 +153,14 @@ public abstract class TextComponent {
         return h;
     }
 
+    /**
+     * Get the area that this component takes up in the window.
+     * @return The area, as a Rectangle.
+     */
+    public Rectangle getBounds() {
+        return new Rectangle(x, y, w, h);
+    }
+
     /**
      * Get the text.
      * @return The text.
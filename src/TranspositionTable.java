@@ -0,0 +1,249 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A cache of Board scores, so that a search does not score the same Board twice. Searches reach the same Board in
+ * different ways, for example through two rotations of a Tetromino that look the same.
+ *
+ * Boards are identified by their Zobrist hash: every cell has a random 64 bit key, and the hash of a Board is all of
+ * the keys of its occupied cells combined with XOR. Placing a Tetromino without clearing any rows only needs the keys
+ * of its four cells to update the hash (see toggleCell()). Two different Boards having the same hash is so unlikely that
+ * it is ignored.
+ *
+ * The table holds a fixed number of entries, in sets of WAYS entries. A Board can only be stored in the set chosen by
+ * its hash. When that set is full, an entry is evicted using the clock policy: each entry is marked when it is used,
+ * and a 'hand' goes around the set, unmarking entries until it finds one that has not been used since the hand last
+ * passed it. Each set has its own lock, so many threads can use the table at once.
+ *
+ * A table stores scores from a single Heuristic. Scores do not include the lines cleared, since the same Board can be
+ * reached by clearing different numbers of lines.
+ */
+public class TranspositionTable {
+
+    //The number of entries in each set.
+    final private static int WAYS = 4;
+
+    //The number of locks. Sets share locks, so that a large table does not need a lock for every set.
+    final private static int LOCK_COUNT = 64;
+
+    //The seed of the Zobrist keys. The same for every table, so that hashes can be compared between tables.
+    final private static long KEY_SEED = 0x5DEECE66DL;
+
+    //The Zobrist key of every cell. The key of column x of row index i is at (i * Board.MAX_COLUMNS) + x.
+    final private long[] keys;
+
+    //The number of row indices that keys were made for.
+    final private int rowIndices;
+
+    //The entries: the hash of the Board, its score, whether it has been used since the clock hand last passed it, and
+    //whether the entry holds anything.
+    final private long[] hashes;
+    final private double[] scores;
+    final private boolean[] used;
+    final private boolean[] filled;
+
+    //The position of the clock hand in each set.
+    final private int[] hands;
+
+    //The number of sets, minus one. The number of sets is a power of two, so this masks a hash into a set.
+    final private int setMask;
+
+    //One lock for every few sets.
+    final private Object[] locks = new Object[LOCK_COUNT];
+
+    //The number of lookups that found and did not find a score.
+    final private LongAdder hits = new LongAdder();
+    final private LongAdder misses = new LongAdder();
+
+    /**
+     * Constructor.
+     * @param capacity The most entries to hold. Rounded up to a power of two, and to at least WAYS.
+     * @param rows The number of visible rows of the Boards that will be hashed.
+     */
+    public TranspositionTable(int capacity, int rows) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("A TranspositionTable must hold at least 1 entry.");
+        }
+
+        int sets = Integer.highestOneBit(Math.max(1, (capacity + WAYS - 1) / WAYS));
+        if (sets * WAYS < capacity) {
+            sets *= 2;
+        }
+        setMask = sets - 1;
+        hashes = new long[sets * WAYS];
+        scores = new double[sets * WAYS];
+        used = new boolean[sets * WAYS];
+        filled = new boolean[sets * WAYS];
+        hands = new int[sets];
+        for (int i = 0; i < LOCK_COUNT; i ++) {
+            locks[i] = new Object();
+        }
+
+        rowIndices = rows + Board.HIDDEN_ROWS;
+        keys = new long[rowIndices * Board.MAX_COLUMNS];
+        SplittableRandom random = new SplittableRandom(KEY_SEED);
+        for (int i = 0; i < keys.length; i ++) {
+            keys[i] = random.nextLong();
+        }
+    }
+
+    /**
+     * Calculates the Zobrist hash of a Board.
+     * @param rowMasks The row bitmasks of the Board, including the hidden rows (see Board).
+     * @return The hash.
+     */
+    public long hash(long[] rowMasks) {
+        if (rowMasks.length > rowIndices) {
+            throw new IllegalArgumentException("The Board has more rows than the TranspositionTable was made for.");
+        }
+        long hash = 0;
+        for (int index = 0; index < rowMasks.length; index ++) {
+            long mask = rowMasks[index];
+            while (mask != 0) {
+                hash ^= keys[(index * Board.MAX_COLUMNS) + Long.numberOfTrailingZeros(mask)];
+                mask &= mask - 1;
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Updates a hash for a cell that was filled or emptied.
+     * @param hash The hash of the Board before the change.
+     * @param index The row index of the cell, counting the hidden rows (row y is at index y + Board.HIDDEN_ROWS).
+     * @param x The column of the cell.
+     * @return The hash of the Board after the change.
+     */
+    public long toggleCell(long hash, int index, int x) {
+        return hash ^ keys[(index * Board.MAX_COLUMNS) + x];
+    }
+
+    /**
+     * Updates a hash for a Tetromino that was placed, without clearing any rows.
+     * @param hash The hash of the Board before the Tetromino was placed.
+     * @param shape The shape of the Tetromino.
+     * @param rotation The rotation of the Tetromino.
+     * @param originX The column of the origin.
+     * @param originIndex The row index of the origin, counting the hidden rows.
+     * @return The hash of the Board with the Tetromino.
+     */
+    public long togglePiece(long hash, int shape, int rotation, int originX, int originIndex) {
+        for (int i = 0; i < TetrominoShape.BLOCK_COUNT; i ++) {
+            hash = toggleCell(hash, originIndex + TetrominoShape.getOffsetY(shape, rotation, i),
+                    originX + TetrominoShape.getOffsetX(shape, rotation, i));
+        }
+        return hash;
+    }
+
+    /**
+     * Looks up the score of a Board.
+     * @param hash The hash of the Board.
+     * @return The score, or NaN if it is not in the table.
+     */
+    public double get(long hash) {
+        int set = (int) (hash ^ (hash >>> 32)) & setMask;
+        int start = set * WAYS;
+        synchronized (locks[set & (LOCK_COUNT - 1)]) {
+            for (int i = start; i < start + WAYS; i ++) {
+                if (filled[i] == true && hashes[i] == hash) {
+                    used[i] = true;
+                    hits.increment();
+                    return scores[i];
+                }
+            }
+        }
+        misses.increment();
+        return Double.NaN;
+    }
+
+    /**
+     * Stores the score of a Board. If the Board's set is full, the clock hand picks an entry to evict.
+     * @param hash The hash of the Board.
+     * @param score The score.
+     */
+    public void put(long hash, double score) {
+        int set = (int) (hash ^ (hash >>> 32)) & setMask;
+        int start = set * WAYS;
+        synchronized (locks[set & (LOCK_COUNT - 1)]) {
+
+            //Already stored, or there is an empty entry.
+            int entry = -1;
+            for (int i = start; i < start + WAYS && entry == -1; i ++) {
+                if (filled[i] == false || hashes[i] == hash) {
+                    entry = i;
+                }
+            }
+
+            //Move the hand past the entries that were used recently, giving each a second chance.
+            if (entry == -1) {
+                while (used[start + hands[set]] == true) {
+                    used[start + hands[set]] = false;
+                    hands[set] = (hands[set] + 1) % WAYS;
+                }
+                entry = start + hands[set];
+                hands[set] = (hands[set] + 1) % WAYS;
+            }
+
+            hashes[entry] = hash;
+            scores[entry] = score;
+            used[entry] = true;
+            filled[entry] = true;
+        }
+    }
+
+    /**
+     * Removes every entry, and resets the counters.
+     */
+    public void clear() {
+        for (int set = 0; set <= setMask; set ++) {
+            synchronized (locks[set & (LOCK_COUNT - 1)]) {
+                for (int i = set * WAYS; i < (set + 1) * WAYS; i ++) {
+                    filled[i] = false;
+                    used[i] = false;
+                }
+                hands[set] = 0;
+            }
+        }
+        hits.reset();
+        misses.reset();
+    }
+
+    /*  Getters */
+
+    /**
+     * Get the number of entries that the table can hold.
+     * @return The number of entries.
+     */
+    public int getCapacity() {
+        return hashes.length;
+    }
+
+    /**
+     * Get the number of lookups that found a score.
+     * @return The number of hits.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Get the number of lookups that did not find a score.
+     * @return The number of misses.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Get the fraction of lookups that found a score.
+     * @return The hit rate, from 0 to 1, or 0 if there have been no lookups.
+     */
+    public double getHitRate() {
+        long hits = getHits();
+        long lookups = hits + getMisses();
+        if (lookups == 0) {
+            return 0;
+        }
+        return (double) hits / lookups;
+    }
+}
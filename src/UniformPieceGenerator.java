@@ -0,0 +1,44 @@
+import java.awt.*;
+import java.util.SplittableRandom;
+
+/**
+ * Generates pieces completely at random: every shape and every colour is equally likely each time, no matter what
+ * came before. The same shape can come many times in a row.
+ */
+public class UniformPieceGenerator extends PieceGenerator {
+
+    //The seed that the random numbers were started from.
+    private long seed;
+
+    //The random number generator. Only one is used for the whole game.
+    private SplittableRandom random;
+
+    /**
+     * Constructor.
+     * @param seed The seed for the random numbers. The same seed gives the same pieces.
+     */
+    public UniformPieceGenerator(long seed) {
+        this.seed = seed;
+        random = new SplittableRandom(seed);
+    }
+
+    @Override
+    public int nextShape() {
+        return random.nextInt(TetrominoShape.SHAPE_COUNT);
+    }
+
+    @Override
+    public Color nextColour() {
+        return Block.getColour(random.nextInt(Block.getColourCount()) + 1);
+    }
+
+    /*  Getters */
+
+    /**
+     * Get the seed that the random numbers were started from.
+     * @return The seed.
+     */
+    public long getSeed() {
+        return seed;
+    }
+}